@@ -0,0 +1,214 @@
+import model.*;
+
+import java.util.*;
+
+/**
+ * Deterministic game positions for the benchmarks on the standard 80x80 map with four players, we are player 1 in
+ * the bottom left corner. Entity properties are the ones the game server sends.
+ */
+public class BenchmarkScenarios {
+    public enum Scenario {
+        // tick 20: bases, a few builders each, untouched resources, fog of war
+        EARLY,
+        // tick 400: ~200 units and buildings of all players, no fog
+        MID,
+        // tick 850: big armies around the center, we see only what our units see
+        LATE,
+    }
+
+    private static final int MAP_SIZE = 80;
+    private static final int PLAYERS = 4;
+    private static final int MY_ID = 1;
+
+    static Map<EntityType, EntityProperties> createEntityProperties() {
+        return GameRules.createEntityProperties();
+    }
+
+    private static class Builder {
+        final Map<EntityType, EntityProperties> properties = createEntityProperties();
+        final Random rnd;
+        final boolean[][] occupied = new boolean[MAP_SIZE][MAP_SIZE];
+        final List<Entity> entities = new ArrayList<>();
+        int nextId = 1;
+
+        Builder(long seed) {
+            this.rnd = new Random(seed);
+        }
+
+        boolean place(Integer playerId, EntityType type, int x, int y) {
+            final int size = properties.get(type).getSize();
+            if (x < 0 || y < 0 || x + size > MAP_SIZE || y + size > MAP_SIZE) {
+                return false;
+            }
+            for (int dx = 0; dx < size; dx++) {
+                for (int dy = 0; dy < size; dy++) {
+                    if (occupied[x + dx][y + dy]) {
+                        return false;
+                    }
+                }
+            }
+            for (int dx = 0; dx < size; dx++) {
+                for (int dy = 0; dy < size; dy++) {
+                    occupied[x + dx][y + dy] = true;
+                }
+            }
+            final int health = properties.get(type).getMaxHealth();
+            entities.add(new Entity(nextId++, playerId, type, new Position(x, y), health, true));
+            return true;
+        }
+
+        // corner of the player, mirrored so that every player starts in its own corner
+        int cornerX(int playerId, int offset) {
+            return playerId == 1 || playerId == 3 ? offset : MAP_SIZE - 1 - offset;
+        }
+
+        int cornerY(int playerId, int offset) {
+            return playerId == 1 || playerId == 2 ? offset : MAP_SIZE - 1 - offset;
+        }
+
+        void placeNear(int playerId, EntityType type, int count, int minOffset, int maxOffset) {
+            final int size = properties.get(type).getSize();
+            for (int placed = 0, attempts = 0; placed < count && attempts < count * 100; attempts++) {
+                int x = cornerX(playerId, minOffset + rnd.nextInt(maxOffset - minOffset + 1));
+                int y = cornerY(playerId, minOffset + rnd.nextInt(maxOffset - minOffset + 1));
+                if (x > MAP_SIZE / 2) {
+                    x -= size - 1;
+                }
+                if (y > MAP_SIZE / 2) {
+                    y -= size - 1;
+                }
+                if (place(playerId, type, x, y)) {
+                    placed++;
+                }
+            }
+        }
+
+        void placeAround(int playerId, EntityType type, int count, int centerX, int centerY, int radius) {
+            for (int placed = 0, attempts = 0; placed < count && attempts < count * 100; attempts++) {
+                int x = centerX + rnd.nextInt(2 * radius + 1) - radius;
+                int y = centerY + rnd.nextInt(2 * radius + 1) - radius;
+                if (place(playerId, type, x, y)) {
+                    placed++;
+                }
+            }
+        }
+
+        void placeBases(int playerId, boolean allBases) {
+            place(playerId, EntityType.BUILDER_BASE, cornerX(playerId, 5) - (playerId == 1 || playerId == 3 ? 0 : 4), cornerY(playerId, 5) - (playerId <= 2 ? 0 : 4));
+            if (allBases) {
+                placeNear(playerId, EntityType.RANGED_BASE, 1, 12, 20);
+                placeNear(playerId, EntityType.MELEE_BASE, 1, 12, 20);
+            }
+        }
+
+        // resource fields: clusters everywhere except the starting corners
+        void placeResources(int clusters, int clusterRadius) {
+            for (int cluster = 0; cluster < clusters; cluster++) {
+                int cx = rnd.nextInt(MAP_SIZE), cy = rnd.nextInt(MAP_SIZE);
+                if (Math.min(cx, MAP_SIZE - 1 - cx) < 20 && Math.min(cy, MAP_SIZE - 1 - cy) < 20) {
+                    continue;
+                }
+                for (int x = cx - clusterRadius; x <= cx + clusterRadius; x++) {
+                    for (int y = cy - clusterRadius; y <= cy + clusterRadius; y++) {
+                        if (Math.abs(x - cx) + Math.abs(y - cy) <= clusterRadius && rnd.nextInt(4) != 0) {
+                            place(null, EntityType.RESOURCE, x, y);
+                        }
+                    }
+                }
+            }
+        }
+
+        // only entities which are seen by my entities, like the server does with fog of war
+        Entity[] visibleEntities() {
+            boolean[][] visible = new boolean[MAP_SIZE][MAP_SIZE];
+            for (Entity entity : entities) {
+                if (entity.getPlayerId() == null || entity.getPlayerId() != MY_ID) {
+                    continue;
+                }
+                final EntityProperties entityProperties = properties.get(entity.getEntityType());
+                final int sight = entityProperties.getSightRange();
+                final int size = entityProperties.getSize();
+                final Position pos = entity.getPosition();
+                for (int x = pos.getX() - sight; x < pos.getX() + size + sight; x++) {
+                    for (int y = pos.getY() - sight; y < pos.getY() + size + sight; y++) {
+                        if (x < 0 || y < 0 || x >= MAP_SIZE || y >= MAP_SIZE) {
+                            continue;
+                        }
+                        int distX = Math.max(0, Math.max(pos.getX() - x, x - (pos.getX() + size - 1)));
+                        int distY = Math.max(0, Math.max(pos.getY() - y, y - (pos.getY() + size - 1)));
+                        if (distX + distY <= sight) {
+                            visible[x][y] = true;
+                        }
+                    }
+                }
+            }
+            List<Entity> result = new ArrayList<>();
+            for (Entity entity : entities) {
+                final int size = properties.get(entity.getEntityType()).getSize();
+                final Position pos = entity.getPosition();
+                boolean seen = false;
+                for (int dx = 0; dx < size && !seen; dx++) {
+                    for (int dy = 0; dy < size && !seen; dy++) {
+                        seen = visible[pos.getX() + dx][pos.getY() + dy];
+                    }
+                }
+                if (seen) {
+                    result.add(entity);
+                }
+            }
+            return result.toArray(new Entity[0]);
+        }
+
+        PlayerView build(int currentTick, boolean fogOfWar, int[] scores, int myResource) {
+            Player[] players = new Player[PLAYERS];
+            for (int i = 0; i < PLAYERS; i++) {
+                players[i] = new Player(i + 1, scores[i], i == 0 ? myResource : 100);
+            }
+            final Entity[] visible = fogOfWar ? visibleEntities() : entities.toArray(new Entity[0]);
+            return new PlayerView(MY_ID, MAP_SIZE, fogOfWar, properties, 1000, 1000, currentTick, players, visible);
+        }
+    }
+
+    public static PlayerView create(Scenario scenario) {
+        Builder builder = new Builder(scenario.ordinal() * 787788L + 1);
+        switch (scenario) {
+            case EARLY: {
+                for (int player = 1; player <= PLAYERS; player++) {
+                    builder.placeBases(player, false);
+                    builder.placeNear(player, EntityType.BUILDER_UNIT, 8, 3, 14);
+                }
+                builder.placeResources(120, 3);
+                return builder.build(20, true, new int[]{40, 40, 40, 40}, 150);
+            }
+            case MID: {
+                for (int player = 1; player <= PLAYERS; player++) {
+                    builder.placeBases(player, true);
+                    builder.placeNear(player, EntityType.HOUSE, 8, 0, 22);
+                    builder.placeNear(player, EntityType.TURRET, 2, 14, 24);
+                    builder.placeNear(player, EntityType.BUILDER_UNIT, 30, 3, 28);
+                    builder.placeNear(player, EntityType.RANGED_UNIT, 12, 15, 38);
+                    builder.placeNear(player, EntityType.MELEE_UNIT, 3, 10, 30);
+                }
+                builder.placeResources(80, 3);
+                return builder.build(400, false, new int[]{2000, 1800, 1500, 1700}, 300);
+            }
+            case LATE: {
+                for (int player = 1; player <= PLAYERS; player++) {
+                    builder.placeBases(player, true);
+                    builder.placeNear(player, EntityType.HOUSE, 14, 0, 25);
+                    builder.placeNear(player, EntityType.TURRET, 4, 14, 26);
+                    builder.placeNear(player, EntityType.BUILDER_UNIT, 40, 3, 30);
+                }
+                builder.placeAround(1, EntityType.RANGED_UNIT, 50, 35, 35, 18);
+                builder.placeAround(2, EntityType.RANGED_UNIT, 25, 50, 35, 12);
+                builder.placeAround(3, EntityType.RANGED_UNIT, 25, 35, 50, 12);
+                builder.placeAround(4, EntityType.RANGED_UNIT, 30, 55, 55, 15);
+                builder.placeAround(4, EntityType.MELEE_UNIT, 10, 55, 55, 15);
+                builder.placeResources(40, 3);
+                return builder.build(850, true, new int[]{9000, 6000, 5500, 7000}, 800);
+            }
+            default:
+                throw new AssertionError("Unknown scenario " + scenario);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+import benchmarks.PathfindingTarget;
+import model.Entity;
+import model.EntityType;
+import model.PlayerView;
+import model.Position;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A {@link State} for one of the {@link BenchmarkScenarios} and the same calls the strategy makes during a tick.
+ * Calls which take arrays from {@link CachedArrays} release them first, like a new tick does.
+ */
+public class PathfindingFixtures implements PathfindingTarget {
+    private static final int BUILDER_MAX_OPTIONS = 5;
+    private static final int BUILDER_MAX_DIST = 30;
+
+    private final State state;
+    private final Position builderPos;
+    private final Position dijkstraFrom;
+    private final Position dijkstraTo;
+    private final int[] queueDists;
+    // the strategy doesn't search from enemy ranged units anymore, the whole-map search is still measured here
+    private final List<Position> enemyRangedUnits = new ArrayList<>();
+    private final BitboardBfs enemyRangedUnitsBfs;
+
+    public PathfindingFixtures(String scenario) {
+        final PlayerView playerView = BenchmarkScenarios.create(BenchmarkScenarios.Scenario.valueOf(scenario));
+        this.state = new State(playerView, null);
+        final List<Entity> builders = state.myEntitiesByType.get(EntityType.BUILDER_UNIT);
+        this.builderPos = builders.get(builders.size() / 2).getPosition();
+        final List<Entity> rangedUnits = state.myEntitiesByType.get(EntityType.RANGED_UNIT);
+        this.dijkstraFrom = rangedUnits.isEmpty() ? builderPos : rangedUnits.get(0).getPosition();
+        final int mapSize = playerView.getMapSize();
+        this.dijkstraTo = findEmptyCell(mapSize * 3 / 4, mapSize * 3 / 4);
+        for (Entity entity : state.allEnemiesWarUnits) {
+            if (entity.getEntityType() == EntityType.RANGED_UNIT) {
+                enemyRangedUnits.add(entity.getPosition());
+            }
+        }
+        this.enemyRangedUnitsBfs = new BitboardBfs(mapSize);
+        enemyRangedUnitsBfs.passable.setAll();
+        Random rnd = new Random(787788);
+        this.queueDists = new int[mapSize * mapSize];
+        for (int i = 0; i < queueDists.length; i++) {
+            queueDists[i] = rnd.nextInt(1000);
+        }
+    }
+
+    private Position findEmptyCell(int x, int y) {
+        for (int dist = 0; ; dist++) {
+            for (int dx = -dist; dx <= dist; dx++) {
+                for (int dy = -dist; dy <= dist; dy++) {
+                    if (state.map.insideMap(x + dx, y + dy) && state.map.getCanGoThrough(x + dx, y + dy) == MapHelper.CAN_GO_THROUGH.EMPTY_CELL) {
+                        return new Position(x + dx, y + dy);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public int bfsToResources() {
+        return state.map.findPathsToResources().reachedCells;
+    }
+
+    @Override
+    public int bfsToEnemyRangedUnits() {
+        enemyRangedUnitsBfs.run(enemyRangedUnits);
+        return enemyRangedUnitsBfs.reachedCells;
+    }
+
+    @Override
+    public int bfsFromBuilderToResources() {
+        return state.map.findPathsToResourcesFromBuilder(builderPos, BUILDER_MAX_OPTIONS, BUILDER_MAX_DIST).size();
+    }
+
+    @Override
+    public int dijkstraToTarget() {
+        CachedArrays.resetAllArrays();
+        state.map.dijkstra.statesByProperties.clear();
+        return state.map.findBestPathToTargetDijkstra(dijkstraFrom, dijkstraTo, 0, Integer.MAX_VALUE,
+                true, true, true, false).size();
+    }
+
+    @Override
+    public int freedomPath() {
+        CachedArrays.resetAllArrays();
+        // a new FreedomPath would reuse the path MapLayers cached, the search itself is what we measure
+        final FreedomPath freedomPath = state.map.freedomPath;
+        final Entity builderBase = freedomPath.getBuilderBase(state);
+        return builderBase == null ? 0 : freedomPath.computePath(state, builderBase).size();
+    }
+
+    @Override
+    public int vertexPriorityQueue() {
+        CachedArrays.resetAllArrays();
+        VertexPriorityQueue pq = new VertexPriorityQueue(queueDists.length);
+        for (int vertex = 0; vertex < queueDists.length; vertex++) {
+            pq.add(vertex, queueDists[vertex]);
+        }
+        int last = 0;
+        while (!pq.isEmpty()) {
+            last = pq.poll();
+        }
+        return last;
+    }
+}
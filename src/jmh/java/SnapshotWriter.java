@@ -0,0 +1,41 @@
+import model.PlayerView;
+import model.ServerMessage;
+import util.ByteBufferReader;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes the {@link PlayerView} snapshots used by the tick benchmarks, either generated from
+ * {@link BenchmarkScenarios} or taken from a game recorded with {@code -DrecordTicks}:
+ * <pre>
+ *     java SnapshotWriter src/jmh/resources/snapshots
+ *     java SnapshotWriter src/jmh/resources/snapshots/mid.bin game 400
+ * </pre>
+ */
+public class SnapshotWriter {
+    private static void write(PlayerView playerView, String path) throws IOException {
+        try (OutputStream stream = new BufferedOutputStream(new FileOutputStream(path))) {
+            playerView.writeTo(stream);
+        }
+        System.err.println("Wrote " + path + " with " + playerView.getEntities().length + " entities");
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 1) {
+            for (BenchmarkScenarios.Scenario scenario : BenchmarkScenarios.Scenario.values()) {
+                write(BenchmarkScenarios.create(scenario), args[0] + "/" + scenario.name().toLowerCase() + ".bin");
+            }
+        } else if (args.length == 3) {
+            final int tick = Integer.parseInt(args[2]);
+            try (TickRecorder.Recording recording = new TickRecorder.Recording(args[1])) {
+                ServerMessage message = ServerMessage.readFrom(new ByteBufferReader(recording.getServerMessage(tick)));
+                write(((ServerMessage.GetAction) message).getPlayerView(), args[0]);
+            }
+        } else {
+            System.err.println("Usage: SnapshotWriter <directory> | SnapshotWriter <file> <recording path prefix> <tick>");
+        }
+    }
+}
@@ -0,0 +1,98 @@
+import benchmarks.TickStage;
+import benchmarks.TickStagesTarget;
+import model.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Replays {@code MyStrategy.getAction} on a snapshot up to the measured stage. The snapshot is decoded again before
+ * every invocation, since the stages change the state they work on.
+ */
+public class TickStageFixtures implements TickStagesTarget {
+    private final byte[] snapshot;
+    private PlayerView playerView;
+    private State state;
+    private MinCostMaxFlow minCostMaxFlow;
+
+    public TickStageFixtures(String scenario) {
+        this.snapshot = readSnapshot(scenario);
+    }
+
+    static byte[] readSnapshot(String scenario) {
+        final String resource = "snapshots/" + scenario.toLowerCase() + ".bin";
+        try (InputStream stream = TickStageFixtures.class.getClassLoader().getResourceAsStream(resource)) {
+            if (stream == null) {
+                throw new AssertionError("No snapshot " + resource);
+            }
+            return stream.readAllBytes();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private PlayerView decodeSnapshot() {
+        try {
+            return PlayerView.readFrom(new ByteArrayInputStream(snapshot));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void prepare(TickStage stage) {
+        playerView = decodeSnapshot();
+        if (stage == TickStage.NEW_STATE) {
+            return;
+        }
+        state = new State(playerView, null);
+        if (stage == TickStage.RANGED_UNITS) {
+            return;
+        }
+        RangedUnitStrategy rangedUnitStrategy = new RangedUnitStrategy(state);
+        rangedUnitStrategy.makeMoveForAll();
+        state.globalStrategy.setNeedMoreRangedUnits(rangedUnitStrategy.needMoreUnitsForSupport);
+        if (stage == TickStage.BUILDERS) {
+            return;
+        }
+        if (stage == TickStage.MIN_COST_MAX_FLOW) {
+            // the graph the bot solves for the builders left after repairs, builds and mining in place
+            final List<Entity> builders = BuilderStrategy.moveBuildersWithoutPathsToResources(state);
+            minCostMaxFlow = BuilderStrategy.buildResourcesGraph(state, builders).minCostMaxFlow;
+            return;
+        }
+        BuilderStrategy.makeMoveForAll(state);
+        final MyStrategy myStrategy = new MyStrategy();
+        for (Entity entity : state.myEntities) {
+            if (entity.getEntityType() == EntityType.TURRET) {
+                myStrategy.turretStrategy(state, entity);
+            } else if (entity.getEntityType().isBuilding()) {
+                myStrategy.spawnNewUnits(state, entity);
+            }
+        }
+    }
+
+    @Override
+    public int run(TickStage stage) {
+        switch (stage) {
+            case NEW_STATE:
+                return new State(playerView, null).myEntities.size();
+            case RANGED_UNITS: {
+                RangedUnitStrategy rangedUnitStrategy = new RangedUnitStrategy(state);
+                rangedUnitStrategy.makeMoveForAll();
+                return rangedUnitStrategy.needMoreUnitsForSupport ? 1 : 0;
+            }
+            case BUILDERS:
+                BuilderStrategy.makeMoveForAll(state);
+                return state.debugTargets.size();
+            case MIN_COST_MAX_FLOW:
+                return (int) minCostMaxFlow.getMinCostMaxFlow(0, minCostMaxFlow.n - 1)[0];
+            case BUILD_ACTIONS:
+                return state.movesPicker.buildActions().getEntityActions().size();
+            default:
+                throw new AssertionError("Unknown stage " + stage);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pathfinding over the positions from {@code BenchmarkScenarios}. Build and run with allocation rates:
+ * <pre>
+ *     mvn -Pjmh package
+ *     java -jar target/benchmarks.jar PathfindingBenchmark -prof gc
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PathfindingBenchmark {
+    @Param({"EARLY", "MID", "LATE"})
+    public String scenario;
+
+    private PathfindingTarget target;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        target = StrategyClasses.create("PathfindingFixtures", scenario);
+    }
+
+    @Benchmark
+    public int bfsToResources() {
+        return target.bfsToResources();
+    }
+
+    @Benchmark
+    public int bfsToEnemyRangedUnits() {
+        return target.bfsToEnemyRangedUnits();
+    }
+
+    @Benchmark
+    public int bfsFromBuilderToResources() {
+        return target.bfsFromBuilderToResources();
+    }
+
+    @Benchmark
+    public int dijkstraToTarget() {
+        return target.dijkstraToTarget();
+    }
+
+    @Benchmark
+    public int freedomPath() {
+        return target.freedomPath();
+    }
+
+    @Benchmark
+    public int vertexPriorityQueue() {
+        return target.vertexPriorityQueue();
+    }
+}
@@ -0,0 +1,20 @@
+package benchmarks;
+
+/**
+ * Pathfinding entry points of the strategy. The strategy lives in the default package, which JMH-generated code
+ * can't reference, so the benchmarks go through this interface, implemented by {@code PathfindingFixtures}.
+ * Every method returns something derived from the result, to keep the work from being optimized away.
+ */
+public interface PathfindingTarget {
+    int bfsToResources();
+
+    int bfsToEnemyRangedUnits();
+
+    int bfsFromBuilderToResources();
+
+    int dijkstraToTarget();
+
+    int freedomPath();
+
+    int vertexPriorityQueue();
+}
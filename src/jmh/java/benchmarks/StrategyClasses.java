@@ -0,0 +1,15 @@
+package benchmarks;
+
+/**
+ * Creates fixtures from the default package by name, see {@link PathfindingTarget}.
+ */
+class StrategyClasses {
+    @SuppressWarnings("unchecked")
+    static <T> T create(String className, String scenario) {
+        try {
+            return (T) Class.forName(className).getDeclaredConstructor(String.class).newInstance(scenario);
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Can't create " + className + " for " + scenario, e);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package benchmarks;
+
+/**
+ * Stages of {@code MyStrategy.getAction}, in the order they run during a tick.
+ */
+public enum TickStage {
+    NEW_STATE,
+    RANGED_UNITS,
+    BUILDERS,
+    // the assignment of builders to resources from BuilderStrategy.findPathsToResources
+    MIN_COST_MAX_FLOW,
+    BUILD_ACTIONS,
+}
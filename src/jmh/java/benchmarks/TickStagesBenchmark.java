@@ -0,0 +1,44 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time of every stage of a tick on the snapshots from {@code src/jmh/resources/snapshots}. Sample time mode, so the
+ * report has p50/p99 per stage:
+ * <pre>
+ *     mvn -Pjmh package
+ *     java -jar target/benchmarks.jar TickStagesBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TickStagesBenchmark {
+    @Param({"EARLY", "MID", "LATE"})
+    public String scenario;
+
+    @Param
+    public TickStage stage;
+
+    private TickStagesTarget target;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        target = StrategyClasses.create("TickStageFixtures", scenario);
+    }
+
+    @Setup(Level.Invocation)
+    public void prepare() {
+        target.prepare(stage);
+    }
+
+    @Benchmark
+    public int run() {
+        return target.run(stage);
+    }
+}
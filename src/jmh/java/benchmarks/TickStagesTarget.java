@@ -0,0 +1,14 @@
+package benchmarks;
+
+/**
+ * Per-stage access to the tick pipeline, implemented by {@code TickStageFixtures} in the default package
+ * (see {@link PathfindingTarget} for why).
+ */
+public interface TickStagesTarget {
+    /**
+     * Runs everything the stage depends on from a freshly decoded snapshot, not measured.
+     */
+    void prepare(TickStage stage);
+
+    int run(TickStage stage);
+}
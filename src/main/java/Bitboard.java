@@ -0,0 +1,44 @@
+import java.util.Arrays;
+
+/**
+ * One bit per map cell. Every row is {@link #words} longs, cell (x, y) is bit {@code x % 64} of word
+ * {@code y * words + x / 64}. Bits past the end of a row are always 0, so whole-word operations can't leak cells
+ * from outside the map.
+ */
+public class Bitboard {
+    final int size;
+    final int words;
+    final long[] bits;
+
+    Bitboard(int size) {
+        this.size = size;
+        this.words = (size + 63) >>> 6;
+        this.bits = new long[size * words];
+    }
+
+    void set(int x, int y) {
+        bits[y * words + (x >>> 6)] |= 1L << x;
+    }
+
+    void clear(int x, int y) {
+        bits[y * words + (x >>> 6)] &= ~(1L << x);
+    }
+
+    boolean get(int x, int y) {
+        return (bits[y * words + (x >>> 6)] & (1L << x)) != 0;
+    }
+
+    void setAll() {
+        final long lastWord = (size & 63) == 0 ? -1L : (1L << size) - 1;
+        for (int y = 0; y < size; y++) {
+            for (int w = 0; w < words - 1; w++) {
+                bits[y * words + w] = -1L;
+            }
+            bits[y * words + words - 1] = lastWord;
+        }
+    }
+
+    void clearAll() {
+        Arrays.fill(bits, 0);
+    }
+}
@@ -0,0 +1,138 @@
+import model.Position;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Multi-source BFS over a {@link Bitboard} of passable cells. Instead of popping cells one by one it grows the whole
+ * frontier by one step with shifts and masks over the row words. Frontiers of all steps are kept, and
+ * {@link #getDist} finds the step which reached a cell, so nothing is done per cell during the search.
+ * <p>
+ * Distances are the same as {@link MapHelper.BfsQueue} gives with a handler which lets through exactly the passable
+ * cells and never ends early: sources get 0 even if they aren't passable.
+ */
+public class BitboardBfs implements QueueDist {
+    final Bitboard passable;
+    private final Bitboard visited;
+    // frontier of every step, rows are the same as in Bitboard. Only rows between validFromY and validToY of a step
+    // are written during the current search, the rest is left from older searches.
+    private long[][] frontiers;
+    private int[] validFromY;
+    private int[] validToY;
+    private int steps;
+    int reachedCells;
+
+    BitboardBfs(int mapSize) {
+        this.passable = new Bitboard(mapSize);
+        this.visited = new Bitboard(mapSize);
+        this.frontiers = new long[0][];
+        this.validFromY = new int[0];
+        this.validToY = new int[0];
+    }
+
+    private long[] startStep(int fromY, int toY) {
+        if (steps == frontiers.length) {
+            final int newLength = Math.max(16, steps * 2);
+            frontiers = Arrays.copyOf(frontiers, newLength);
+            validFromY = Arrays.copyOf(validFromY, newLength);
+            validToY = Arrays.copyOf(validToY, newLength);
+        }
+        if (frontiers[steps] == null) {
+            frontiers[steps] = new long[passable.bits.length];
+        }
+        validFromY[steps] = fromY;
+        validToY[steps] = toY;
+        return frontiers[steps++];
+    }
+
+    private void clearRows(long[] frontier, int fromY, int toY) {
+        final int words = passable.words;
+        Arrays.fill(frontier, Math.max(0, fromY) * words, (Math.min(passable.size - 1, toY) + 1) * words, 0);
+    }
+
+    void run(final List<Position> sources) {
+        steps = 0;
+        reachedCells = 0;
+        visited.clearAll();
+        final int size = passable.size;
+        final int words = passable.words;
+        final long[] first = startStep(0, size - 1);
+        clearRows(first, 0, size - 1);
+        int minY = size, maxY = -1;
+        for (Position pos : sources) {
+            if (visited.get(pos.getX(), pos.getY())) {
+                continue;
+            }
+            visited.set(pos.getX(), pos.getY());
+            first[pos.getY() * words + (pos.getX() >>> 6)] |= 1L << pos.getX();
+            reachedCells++;
+            minY = Math.min(minY, pos.getY());
+            maxY = Math.max(maxY, pos.getY());
+        }
+        final long[] passableBits = passable.bits;
+        final long[] visitedBits = visited.bits;
+        while (minY <= maxY) {
+            final long[] cur = frontiers[steps - 1];
+            final int fromY = Math.max(0, minY - 1);
+            final int toY = Math.min(size - 1, maxY + 1);
+            // the next step reads two rows more on each side
+            final long[] fresh = startStep(Math.max(0, fromY - 2), Math.min(size - 1, toY + 2));
+            clearRows(fresh, fromY - 2, fromY - 1);
+            clearRows(fresh, toY + 1, toY + 2);
+            int nextMinY = size, nextMaxY = -1;
+            for (int y = fromY; y <= toY; y++) {
+                final int row = y * words;
+                for (int w = 0; w < words; w++) {
+                    final int i = row + w;
+                    final long f = cur[i];
+                    long spread = f | (f << 1) | (f >>> 1);
+                    if (w > 0) {
+                        spread |= cur[i - 1] >>> 63;
+                    }
+                    if (w + 1 < words) {
+                        spread |= cur[i + 1] << 63;
+                    }
+                    if (y > 0) {
+                        spread |= cur[i - words];
+                    }
+                    if (y + 1 < size) {
+                        spread |= cur[i + words];
+                    }
+                    final long reached = spread & passableBits[i] & ~visitedBits[i];
+                    fresh[i] = reached;
+                    if (reached == 0) {
+                        continue;
+                    }
+                    visitedBits[i] |= reached;
+                    reachedCells += Long.bitCount(reached);
+                    nextMinY = Math.min(nextMinY, y);
+                    nextMaxY = y;
+                }
+            }
+            minY = nextMinY;
+            maxY = nextMaxY;
+        }
+    }
+
+    /**
+     * Takes O(distance) to find the step which reached the cell.
+     */
+    @Override
+    public int getDist(int x, int y) {
+        if (!visited.get(x, y)) {
+            return Integer.MAX_VALUE;
+        }
+        final int i = y * passable.words + (x >>> 6);
+        final long bit = 1L << x;
+        for (int step = 0; ; step++) {
+            if (y >= validFromY[step] && y <= validToY[step] && (frontiers[step][i] & bit) != 0) {
+                return step;
+            }
+        }
+    }
+
+    @Override
+    public int getEdgeCost(int x, int y) {
+        return 1;
+    }
+}
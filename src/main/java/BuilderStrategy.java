@@ -1,4 +1,6 @@
+import model.AutoAttack;
 import model.Entity;
+import model.EntityAction;
 import model.EntityType;
 import model.Position;
 
@@ -41,7 +43,7 @@ public class BuilderStrategy {
             return false;
         }
         final Position pos = builder.getPosition();
-        int priority = state.map.underAttack[pos.getX()][pos.getY()].isUnderAttack() ? MovesPicker.PRIORITY_GO_AWAY_FROM_ATTACK : MovesPicker.PRIORITY_SMALL;
+        int priority = state.map.getUnderAttack(pos.getX(), pos.getY()).isUnderAttack() ? MovesPicker.PRIORITY_GO_AWAY_FROM_ATTACK : MovesPicker.PRIORITY_SMALL;
         state.move(builder, bestPosToGo, priority);
         return true;
     }
@@ -173,7 +175,7 @@ public class BuilderStrategy {
             int ny = pos.getY() + dy[it];
             if (state.map.canMineThisCell(nx, ny)) {
                 markBuilderAsWorking(state, builder);
-                state.attack(builder, state.map.entitiesByPos[nx][ny], MovesPicker.PRIORITY_MINE_RESOURCES);
+                state.attack(builder, state.map.getEntity(nx, ny), MovesPicker.PRIORITY_MINE_RESOURCES);
                 return true;
             }
         }
@@ -252,6 +254,16 @@ public class BuilderStrategy {
     }
 
     static void makeMoveForAll(final State state) {
+        findPathsToResources(state, moveBuildersWithoutPathsToResources(state));
+        state.decidedWhatToWithBuilders = true;
+    }
+
+    /**
+     * Repairs, builds and mines resources next to builders.
+     *
+     * @return builders which should get a path to resources
+     */
+    static List<Entity> moveBuildersWithoutPathsToResources(final State state) {
         handleAllRepairings(state);
         final List<Entity> allBuilders = state.myEntitiesByType.get(BUILDER_UNIT);
         List<Entity> canBuildOrMineResources = new ArrayList<>();
@@ -261,7 +273,7 @@ public class BuilderStrategy {
                 continue;
             }
             final Position pos = builder.getPosition();
-            if (state.map.underAttack[pos.getX()][pos.getY()].isUnderAttack()) {
+            if (state.map.getUnderAttack(pos.getX(), pos.getY()).isUnderAttack()) {
                 underAttack.add(builder);
             } else {
                 canBuildOrMineResources.add(builder);
@@ -272,16 +284,20 @@ public class BuilderStrategy {
         List<EntityType> buildingsToBuild = wantToBuild.whichBuildings();
         for (EntityType toBuild : buildingsToBuild) {
             if (!canBuildOrMineResources.isEmpty()) {
+                TickProfiler.begin(TickProfiler.Phase.TRY_TO_BUILD);
                 Set<Entity> builders = tryToBuildSomething(state, canBuildOrMineResources, toBuild, false);
+                TickProfiler.end(TickProfiler.Phase.TRY_TO_BUILD);
                 if (builders != null) {
                     canBuildOrMineResources.removeAll(builders);
                 } else {
+                    TickProfiler.begin(TickProfiler.Phase.TRY_TO_BUILD);
                     builders = tryToBuildSomething(state, canBuildOrMineResources, toBuild, true);
+                    TickProfiler.end(TickProfiler.Phase.TRY_TO_BUILD);
                     if (builders != null) {
                         List<Entity> newCanBuildAndMine = new ArrayList<>();
                         for (Entity checkBuilder : canBuildOrMineResources) {
                             final Position pos = checkBuilder.getPosition();
-                            if (state.map.underAttack[pos.getX()][pos.getY()].isUnderAttack()) {
+                            if (state.map.getUnderAttack(pos.getX(), pos.getY()).isUnderAttack()) {
                                 underAttack.add(checkBuilder);
                             } else {
                                 newCanBuildAndMine.add(checkBuilder);
@@ -298,15 +314,38 @@ public class BuilderStrategy {
         List<Entity> needPathToResources = new ArrayList<>();
         for (Entity builder : shouldGoMine) {
             final Position pos = builder.getPosition();
-            if (state.map.underAttack[pos.getX()][pos.getY()] == MapHelper.UNDER_ATTACK.SAFE) {
+            if (state.map.getUnderAttack(pos.getX(), pos.getY()) == MapHelper.UNDER_ATTACK.SAFE) {
                 if (mineRightNow(state, builder)) {
                     continue;
                 }
             }
             needPathToResources.add(builder);
         }
-        findPathsToResources(state, needPathToResources);
-        state.decidedWhatToWithBuilders = true;
+        return pickBuildersToPlan(state, needPathToResources);
+    }
+
+    /**
+     * With a tight {@link TimeBudget} only the most urgent builders get paths to resources, the rest auto attack
+     * resources as the whole army does in {@link MyStrategy#createFallbackAction}.
+     */
+    private static List<Entity> pickBuildersToPlan(final State state, final List<Entity> builders) {
+        final int MIN_PLANNED_BUILDERS = 5;
+        final int plannedLimit = TimeBudget.scale(builders.size(), MIN_PLANNED_BUILDERS);
+        if (plannedLimit >= builders.size()) {
+            return builders;
+        }
+        List<Entity> planned = new ArrayList<>();
+        for (UnitScheduler.UnitWithUrgency ranked : UnitScheduler.rankByUrgency(state, builders)) {
+            final Entity builder = ranked.unit;
+            if (planned.size() < plannedLimit || ranked.urgency >= UnitScheduler.CRITICAL_URGENCY) {
+                planned.add(builder);
+            } else {
+                final int autoMineRange = state.getEntityProperties(builder).getSightRange() * 5;
+                state.movesPicker.addManualAction(builder, EntityAction.createAttackAction(null,
+                        new AutoAttack(autoMineRange, new EntityType[]{RESOURCE})), MovesPicker.PRIORITY_SMALL);
+            }
+        }
+        return planned;
     }
 
     private static boolean isGoodPositionForHouse(Position pos) {
@@ -426,7 +465,7 @@ public class BuilderStrategy {
             buildOptions.add(buildOption);
         }
         Collections.sort(buildOptions);
-        final int CHECK_BUILD_OPTIONS = 10;
+        final int CHECK_BUILD_OPTIONS = TimeBudget.scale(10, 2);
         List<BuildOption> optionsSmarter = new ArrayList<>();
         for (int i = 0; i < CHECK_BUILD_OPTIONS && i < buildOptions.size(); i++) {
             final Position pos = buildOptions.get(i).where;
@@ -478,8 +517,21 @@ public class BuilderStrategy {
     }
 
 
-    private static void findPathsToResources(final State state, final List<Entity> builders) {
-        final int MAX_OPTIONS = 10;
+    static class ResourcesGraph {
+        final MinCostMaxFlow minCostMaxFlow;
+        // builder i is vertex 1 + i, edges[i][j] goes to the target of suggestionsForBuilders[i].get(j)
+        final MinCostMaxFlow.Edge[][] edges;
+        final List<MapHelper.PathSuggestion>[] suggestionsForBuilders;
+
+        ResourcesGraph(MinCostMaxFlow minCostMaxFlow, MinCostMaxFlow.Edge[][] edges, List<MapHelper.PathSuggestion>[] suggestionsForBuilders) {
+            this.minCostMaxFlow = minCostMaxFlow;
+            this.edges = edges;
+            this.suggestionsForBuilders = suggestionsForBuilders;
+        }
+    }
+
+    static ResourcesGraph buildResourcesGraph(final State state, final List<Entity> builders) {
+        final int MAX_OPTIONS = TimeBudget.scale(10, 3);
         final int MAX_DIST = 40;
         final Map<Position, Integer> compressedCoords = new HashMap<>();
         List<MapHelper.PathSuggestion>[] suggestionsForBuilders = new List[builders.size()];
@@ -510,6 +562,14 @@ public class BuilderStrategy {
         for (int i = 0; i < compressedCoords.size(); i++) {
             minCostMaxFlow.addEdge(1 + builders.size() + i, minCostMaxFlow.n - 1, 1, 0);
         }
+        return new ResourcesGraph(minCostMaxFlow, edges, suggestionsForBuilders);
+    }
+
+    private static void findPathsToResources(final State state, final List<Entity> builders) {
+        final ResourcesGraph graph = buildResourcesGraph(state, builders);
+        final MinCostMaxFlow minCostMaxFlow = graph.minCostMaxFlow;
+        final MinCostMaxFlow.Edge[][] edges = graph.edges;
+        final List<MapHelper.PathSuggestion>[] suggestionsForBuilders = graph.suggestionsForBuilders;
         minCostMaxFlow.getMinCostMaxFlow(0, minCostMaxFlow.n - 1);
         for (int i = 0; i < builders.size(); i++) {
             final Entity builder = builders.get(i);
@@ -530,7 +590,7 @@ public class BuilderStrategy {
             }
             if (!found) {
                 final Position pos = builder.getPosition();
-//                if (state.map.underAttack[pos.getX()][pos.getY()].isUnderAttack()) {
+//                if (state.map.getUnderAttack(pos.getX(), pos.getY()).isUnderAttack()) {
                 if (!moveAwayFromAttack(state, builder)) {
                     // I will die, but at least will do something!
                     blocked(state, builder);
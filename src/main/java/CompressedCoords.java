@@ -1,18 +1,59 @@
 import model.Position;
 
+/**
+ * Packs a map cell into one int. Rows have a power-of-two stride, so decoding is a mask and a shift instead of a
+ * division, and the map is surrounded by a one-cell border: neighbours of any map cell still get a valid index.
+ * Arrays indexed by compressed coordinates should have {@link #getCells()} elements.
+ * <p>
+ * {@link #init(int)} must be called with the real map size before anything is compressed.
+ */
 public class CompressedCoords {
-    private final static int MAP_SIZE = 80;
+    static final int BORDER = 1;
+
+    private static int mapSize = -1;
+    private static int shift;
+    private static int mask;
+    private static int cells;
+
+    static void init(int mapSize) {
+        if (CompressedCoords.mapSize == mapSize) {
+            return;
+        }
+        CompressedCoords.mapSize = mapSize;
+        shift = 32 - Integer.numberOfLeadingZeros(mapSize + 2 * BORDER - 1);
+        mask = (1 << shift) - 1;
+        cells = (mapSize + 2 * BORDER) << shift;
+    }
+
+    static int getMapSize() {
+        return mapSize;
+    }
+
+    static int getStride() {
+        return 1 << shift;
+    }
+
+    static int getCells() {
+        return cells;
+    }
 
     public static int compress(int x, int y) {
-        return x + y * MAP_SIZE;
+        return (x + BORDER) + ((y + BORDER) << shift);
     }
 
     public static int extractX(int coords) {
-        return coords % MAP_SIZE;
+        return (coords & mask) - BORDER;
     }
 
     public static int extractY(int coords) {
-        return coords / MAP_SIZE;
+        return (coords >> shift) - BORDER;
+    }
+
+    /**
+     * @return difference between compressed coordinates of a cell and of the cell shifted by (dx, dy)
+     */
+    static int offset(int dx, int dy) {
+        return dx + (dy << shift);
     }
 
     public static int compress(Position pos) {
@@ -0,0 +1,103 @@
+import model.Action;
+import model.PlayerView;
+
+import java.io.PrintStream;
+import java.util.concurrent.*;
+
+/**
+ * Runs {@link MyStrategy#getAction} on a worker thread and answers with {@link MyStrategy#createFallbackAction} if
+ * the plan is not ready before the deadline.
+ * <p>
+ * A late plan is never interrupted: it runs to the end on the worker, so all static cross-tick state (agents,
+ * opponent tracker, cached arrays) stays consistent, and its result is dropped. Until it finishes, every new tick is
+ * answered with a fallback and the strategy doesn't see that tick at all. While the worker is busy it still reads
+ * the previous {@link PlayerView}, so the caller must not reuse its objects, see {@link #isWorkerBusy()}.
+ */
+class DeadlineStrategy {
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    private final MyStrategy strategy;
+    private final long deadlineNanos;
+    private final ExecutorService worker;
+    private Future<Action> lastPlan;
+    // the first tick loads and initializes most classes, it has no deadline
+    private boolean firstTick = true;
+    private int lateTicks;
+    private int skippedTicks;
+
+    DeadlineStrategy(MyStrategy strategy, long deadlineMillis) {
+        this.strategy = strategy;
+        this.deadlineNanos = TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+        this.worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "strategy-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static Action getResult(Future<Action> plan) {
+        try {
+            return plan.get();
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Strategy failed", e.getCause());
+        }
+    }
+
+    Action getAction(PlayerView playerView) {
+        final long startTime = System.nanoTime();
+        if (isWorkerBusy()) {
+            skippedTicks++;
+            return MyStrategy.createFallbackAction(playerView);
+        }
+        if (lastPlan != null) {
+            // finished late, only check that it didn't fail
+            getResult(lastPlan);
+            lastPlan = null;
+        }
+        final Future<Action> plan = worker.submit(() -> strategy.getAction(playerView, null));
+        if (firstTick) {
+            firstTick = false;
+            return getResult(plan);
+        }
+        try {
+            final long timeLeft = deadlineNanos - (System.nanoTime() - startTime);
+            return plan.get(Math.max(timeLeft, 0), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            lastPlan = plan;
+            lateTicks++;
+            return MyStrategy.createFallbackAction(playerView);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Strategy failed", e.getCause());
+        }
+    }
+
+    /**
+     * @return true if a late plan is still running and reads the {@link PlayerView} of an older tick
+     */
+    boolean isWorkerBusy() {
+        return lastPlan != null && !lastPlan.isDone();
+    }
+
+    /**
+     * Waits for a late plan to finish, so nothing writes the static state (e.g. {@link TickProfiler}) after this.
+     */
+    void shutdown() {
+        worker.shutdown();
+        try {
+            if (!worker.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                System.err.println("Late plan is still running after " + SHUTDOWN_TIMEOUT_SECONDS + " s");
+            }
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    void printStats(PrintStream out) {
+        out.println("Deadline " + TimeUnit.NANOSECONDS.toMillis(deadlineNanos) + " ms: " + lateTicks + " late ticks, "
+                + skippedTicks + " ticks skipped while a late tick was running");
+    }
+}
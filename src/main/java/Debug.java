@@ -152,14 +152,52 @@ public class Debug {
         printDebugText(state, debugInterface, "Health: " + cnt5 + "/" + cnt69 + "/" + cnt10, Color.GREEN);
     }
 
-    private static void fillCell(List<Vec2Float> trianglePoints, int x, int y) {
-        trianglePoints.add(new Vec2Float(x, y));
-        trianglePoints.add(new Vec2Float(x + 1, y));
-        trianglePoints.add(new Vec2Float(x, y + 1));
-
-        trianglePoints.add(new Vec2Float(x + 1, y + 1));
-        trianglePoints.add(new Vec2Float(x + 1, y));
-        trianglePoints.add(new Vec2Float(x, y + 1));
+    private static void fillRect(List<Vec2Float> trianglePoints, int x1, int y1, int x2, int y2) {
+        trianglePoints.add(new Vec2Float(x1, y1));
+        trianglePoints.add(new Vec2Float(x2, y1));
+        trianglePoints.add(new Vec2Float(x1, y2));
+
+        trianglePoints.add(new Vec2Float(x2, y2));
+        trianglePoints.add(new Vec2Float(x2, y1));
+        trianglePoints.add(new Vec2Float(x1, y2));
+    }
+
+    /**
+     * Fills all marked cells, but greedily merges them into rectangles first: take the first free cell, extend it
+     * along y while cells are marked, then along x while the whole column segment is marked. Big areas become a
+     * few rectangles instead of six vertices per cell. Clears {@code cells}.
+     */
+    private static void fillCells(List<Vec2Float> trianglePoints, boolean[][] cells) {
+        for (int x = 0; x < cells.length; x++) {
+            for (int y = 0; y < cells[x].length; y++) {
+                if (!cells[x][y]) {
+                    continue;
+                }
+                int toY = y + 1;
+                while (toY < cells[x].length && cells[x][toY]) {
+                    toY++;
+                }
+                int toX = x + 1;
+                while (toX < cells.length && isColumnSegmentMarked(cells[toX], y, toY)) {
+                    toX++;
+                }
+                for (int xx = x; xx < toX; xx++) {
+                    for (int yy = y; yy < toY; yy++) {
+                        cells[xx][yy] = false;
+                    }
+                }
+                fillRect(trianglePoints, x, y, toX, toY);
+            }
+        }
+    }
+
+    private static boolean isColumnSegmentMarked(boolean[] column, int fromY, int toY) {
+        for (int y = fromY; y < toY; y++) {
+            if (!column[y]) {
+                return false;
+            }
+        }
+        return true;
     }
 
     private static ColoredVertex[] convertVerticesToList(final List<Vec2Float> points, final Color color) {
@@ -172,19 +210,19 @@ public class Debug {
 
     private static void showUnderAttackMap(final State state, final DebugInterface debugInterface) {
         final MapHelper map = state.map;
-        final int mapSize = map.underAttack.length;
+        final int mapSize = map.mapSize;
         List<Vec2Float> trianglePoints1 = new ArrayList<>();
         List<Vec2Float> trianglePoints2 = new ArrayList<>();
+        boolean[][] cells1 = new boolean[mapSize][mapSize];
+        boolean[][] cells2 = new boolean[mapSize][mapSize];
         for (int x = 0; x < mapSize; x++) {
             for (int y = 0; y < mapSize; y++) {
-                if (map.underAttack[x][y] == MapHelper.UNDER_ATTACK.UNDER_ATTACK) {
-                    fillCell(trianglePoints1, x, y);
-                }
-                if (map.underAttack[x][y] == MapHelper.UNDER_ATTACK.UNDER_ATTACK_DO_NOT_GO_THERE) {
-                    fillCell(trianglePoints2, x, y);
-                }
+                cells1[x][y] = map.getUnderAttack(x, y) == MapHelper.UNDER_ATTACK.UNDER_ATTACK;
+                cells2[x][y] = map.getUnderAttack(x, y) == MapHelper.UNDER_ATTACK.UNDER_ATTACK_DO_NOT_GO_THERE;
             }
         }
+        fillCells(trianglePoints1, cells1);
+        fillCells(trianglePoints2, cells2);
         ColoredVertex[] vertices1 = convertVerticesToList(trianglePoints1, Color.TRANSPARENT_RED);
         debugInterface.send(new DebugCommand.Add(new DebugData.Primitives(vertices1, PrimitiveType.TRIANGLES)));
         ColoredVertex[] vertices2 = convertVerticesToList(trianglePoints2, Color.TRANSPARENT_ORANGE);
@@ -392,9 +430,12 @@ public class Debug {
 
     private static void showFreedomPath(final State state, final DebugInterface debugInterface) {
         List<Vec2Float> trianglePoints = new ArrayList<>();
+        final int mapSize = state.playerView.getMapSize();
+        boolean[][] cells = new boolean[mapSize][mapSize];
         for (Position pos : state.map.freedomPath.path) {
-            fillCell(trianglePoints, pos.getX(), pos.getY());
+            cells[pos.getX()][pos.getY()] = true;
         }
+        fillCells(trianglePoints, cells);
         ColoredVertex[] vertices2 = convertVerticesToList(trianglePoints, Color.TRANSPARENT_BLUE);
         debugInterface.send(new DebugCommand.Add(new DebugData.Primitives(vertices2, PrimitiveType.TRIANGLES)));
     }
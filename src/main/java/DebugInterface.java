@@ -1,17 +1,156 @@
+import util.ByteBufferReader;
+
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 public class DebugInterface {
+    // frames waiting for the writer thread, newer frames are dropped when it can't keep up
+    private static final int MAX_PENDING_FRAMES = 2;
+    // how often a blocked hand-off checks whether the writer thread is still alive
+    private static final long HAND_OFF_CHECK_MILLIS = 100;
+
     private InputStream inputStream;
+    private ByteBufferReader reader;
     private OutputStream outputStream;
 
+    private BlockingQueue<List<model.DebugCommand>> pendingFrames;
+    private List<model.DebugCommand> currentFrame;
+    // frames handed to the writer thread and not written yet, guarded by "this"
+    private int framesInFlight;
+    private int droppedFrames;
+    private volatile IOException writerFailure;
+
     public DebugInterface(InputStream inputStream, OutputStream outputStream) {
         this.inputStream = inputStream;
         this.outputStream = outputStream;
     }
 
+    public DebugInterface(ByteBufferReader reader, OutputStream outputStream) {
+        this.reader = reader;
+        this.outputStream = outputStream;
+    }
+
+    /**
+     * From now on {@link #send} only queues commands. Everything up to a {@link model.DebugCommand.Flush} is one
+     * frame, which a background thread serializes and writes with a single flush. Writes synchronize on the output
+     * stream, so other writers to the same stream have to do the same.
+     */
+    public void startAsyncWriter() {
+        if (pendingFrames != null) {
+            return;
+        }
+        pendingFrames = new ArrayBlockingQueue<>(MAX_PENDING_FRAMES);
+        currentFrame = new ArrayList<>();
+        Thread writerThread = new Thread(this::writeFrames, "debug-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    private void writeFrames() {
+        ByteArrayOutputStream frameBytes = new ByteArrayOutputStream();
+        try {
+            while (true) {
+                List<model.DebugCommand> frame = pendingFrames.take();
+                frameBytes.reset();
+                for (model.DebugCommand command : frame) {
+                    new model.ClientMessage.DebugMessage(command).writeTo(frameBytes);
+                }
+                synchronized (outputStream) {
+                    frameBytes.writeTo(outputStream);
+                    outputStream.flush();
+                }
+                synchronized (this) {
+                    framesInFlight--;
+                    notifyAll();
+                }
+            }
+        } catch (InterruptedException ignored) {
+        } catch (IOException e) {
+            writerFailure = e;
+            synchronized (this) {
+                framesInFlight = 0;
+                notifyAll();
+            }
+        }
+    }
+
+    private void checkWriterFailure() {
+        if (writerFailure != null) {
+            throw new RuntimeException(writerFailure);
+        }
+    }
+
+    private void handOffCurrentFrame(boolean okToDrop) {
+        if (currentFrame.isEmpty()) {
+            return;
+        }
+        // a dead writer would never take the frame
+        checkWriterFailure();
+        synchronized (this) {
+            framesInFlight++;
+        }
+        boolean queued;
+        if (okToDrop) {
+            queued = pendingFrames.offer(currentFrame);
+        } else {
+            try {
+                while (!pendingFrames.offer(currentFrame, HAND_OFF_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+                    checkWriterFailure();
+                }
+                queued = true;
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        if (!queued) {
+            synchronized (this) {
+                framesInFlight--;
+            }
+            droppedFrames++;
+        }
+        currentFrame = new ArrayList<>();
+    }
+
+    /**
+     * Blocks until every command sent so far is written, e.g. before telling the server that a debug update is done.
+     */
+    public void awaitWritten() {
+        if (pendingFrames == null) {
+            return;
+        }
+        handOffCurrentFrame(false);
+        synchronized (this) {
+            while (framesInFlight > 0 && writerFailure == null) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+        checkWriterFailure();
+    }
+
+    public int getDroppedFrames() {
+        return droppedFrames;
+    }
+
     public void send(model.DebugCommand command) {
+        if (pendingFrames != null) {
+            checkWriterFailure();
+            currentFrame.add(command);
+            if (command instanceof model.DebugCommand.Flush) {
+                handOffCurrentFrame(true);
+            }
+            return;
+        }
         try {
             new model.ClientMessage.DebugMessage(command).writeTo(outputStream);
             outputStream.flush();
@@ -21,12 +160,18 @@ public class DebugInterface {
     }
 
     public model.DebugState getState() {
+        awaitWritten();
         try {
-            new model.ClientMessage.RequestDebugState().writeTo(outputStream);
-            outputStream.flush();
+            synchronized (outputStream) {
+                new model.ClientMessage.RequestDebugState().writeTo(outputStream);
+                outputStream.flush();
+            }
+            if (reader != null) {
+                return model.DebugState.readFrom(reader);
+            }
             return model.DebugState.readFrom(inputStream);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
-}
\ No newline at end of file
+}
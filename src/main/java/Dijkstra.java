@@ -29,19 +29,19 @@ public class Dijkstra {
         final Position targetPos;
         final DijkstraHandler handler;
         final MapHelper mapHelper;
+        int expandedVertices;
 
-        State(Position targetPos, DijkstraHandler handler, final int mapSize, MapHelper mapHelper) {
-            final int arraySize = mapSize * mapSize;
+        State(Position targetPos, DijkstraHandler handler, MapHelper mapHelper) {
+            final int arraySize = CompressedCoords.getCells();
             seen = CachedArrays.getNewIntArray(arraySize);
             pq = new VertexPriorityQueue(arraySize);
             this.targetPos = targetPos;
             this.handler = handler;
             this.mapHelper = mapHelper;
-            addVertexToQueue(targetPos.getX(), targetPos.getY(), 0);
+            addVertexToQueue(CompressedCoords.compress(targetPos), 0);
         }
 
-        void addVertexToQueue(int x, int y, int distToPos) {
-            int compressedCoord = CompressedCoords.compress(x, y);
+        void addVertexToQueue(int compressedCoord, int distToPos) {
             if (pq.dist.contains(compressedCoord) && pq.dist.get(compressedCoord) <= distToPos) {
                 return;
             }
@@ -54,16 +54,20 @@ public class Dijkstra {
             int curPosX = CompressedCoords.extractX(compressedCoord);
             int curPosY = CompressedCoords.extractY(compressedCoord);
             final int nextDist = pq.dist.get(compressedCoord) + getEdgeCost(curPosX, curPosY);
+            final int[] offsets = mapHelper.dirsUpOffsets;
+            final boolean[] wall = mapHelper.wall;
             for (int it = 0; it < dirs.length; it++) {
-                int nx = curPosX + dirs[it].dx;
-                int ny = curPosY + dirs[it].dy;
-                if (!mapHelper.insideMap(nx, ny)) {
+                final int nextCompressedCoord = compressedCoord + offsets[it];
+                if (wall[nextCompressedCoord]) {
                     continue;
                 }
-                if (!handler.canGoThrough(mapHelper.canGoThrough[nx][ny], mapHelper.underAttack[nx][ny], nx, ny, nextDist)) {
+                int nx = curPosX + dirs[it].dx;
+                int ny = curPosY + dirs[it].dy;
+                if (!handler.canGoThrough(MapHelper.CAN_GO_THROUGH.VALUES[mapHelper.canGoThrough[nextCompressedCoord]],
+                        MapHelper.UNDER_ATTACK.VALUES[mapHelper.underAttack[nextCompressedCoord]], nx, ny, nextDist)) {
                     continue;
                 }
-                addVertexToQueue(nx, ny, nextDist);
+                addVertexToQueue(nextCompressedCoord, nextDist);
             }
         }
 
@@ -77,6 +81,7 @@ public class Dijkstra {
                     throw new AssertionError("Shouldn't work like this");
                 }
                 seen.put(compressedCoord, 1);
+                expandedVertices++;
                 visitNeighbours(compressedCoord);
                 if (pq.dist.contains(compressedCoord) && pq.dist.get(compressedCoord) > maxDist) {
                     return;
@@ -97,7 +102,7 @@ public class Dijkstra {
         @Override
         public int getEdgeCost(int x, int y) {
             int straightDistToTarget = targetPos.distTo(x, y);
-            return handler.getEdgeCost(mapHelper.canGoThrough[x][y], straightDistToTarget, x, y);
+            return handler.getEdgeCost(mapHelper.getCanGoThrough(x, y), straightDistToTarget, x, y);
         }
     }
 
@@ -139,6 +144,9 @@ public class Dijkstra {
     }
 
     final Map<DijkstraProperties, State> statesByProperties;
+    // stats of the last findFirstCellOnPath call, for StrategyEvents.DijkstraSearch
+    boolean lastCacheHit;
+    int lastExpandedVertices;
 
     public Dijkstra(MapHelper mapHelper) {
         this.mapHelper = mapHelper;
@@ -149,8 +157,7 @@ public class Dijkstra {
     QueueDist findFirstCellOnPath(final Position startPos,
                                   final Position targetPos,
                                   final DijkstraHandler handler,
-                                  int maxDist,
-                                  int mapSize) {
+                                  int maxDist) {
         if (startPos.distTo(targetPos) == 0) {
             return null;
         }
@@ -161,11 +168,14 @@ public class Dijkstra {
                 handler.getSkipLastNCells(),
                 handler.isOkEatFood());
         State state = statesByProperties.get(properties);
+        lastCacheHit = state != null;
         if (state == null) {
-            state = new State(targetPos, handler, mapSize, mapHelper);
+            state = new State(targetPos, handler, mapHelper);
             statesByProperties.put(properties, state);
         }
+        final int expandedBefore = state.expandedVertices;
         state.getFirstPathOnPath(startPos, maxDist);
+        lastExpandedVertices = state.expandedVertices - expandedBefore;
         return state;
     }
 }
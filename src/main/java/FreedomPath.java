@@ -42,7 +42,7 @@ public class FreedomPath {
                 if (!mapHelper.insideMap(nx, ny)) {
                     continue;
                 }
-                Entity there = mapHelper.entitiesByPos[nx][ny];
+                Entity there = mapHelper.getEntity(nx, ny);
                 if (there != null && there.getPlayerId() == null) {
                     resources++;
                 }
@@ -150,41 +150,52 @@ public class FreedomPath {
         return onPath.contains(CompressedCoords.compress(pos));
     }
 
-    FreedomPath(State state, MapHelper mapHelper) {
-        this.state = state;
-        this.mapHelper = mapHelper;
-
+    List<Position> computePath(State state, Entity builderBase) {
         final int mapSize = state.playerView.getMapSize();
-
-        this.onPath = CachedArrays.getNewIntArray(mapSize * mapSize);
         final Position targetPos = new Position(mapSize - 1, mapSize - 1);
         Handler handler = new Handler(mapHelper);
-        Dijkstra.State dijkstra = new Dijkstra.State(targetPos, handler, mapSize, mapHelper);
+        Dijkstra.State dijkstra = new Dijkstra.State(targetPos, handler, mapHelper);
+
+        Position bottomLeft = builderBase.getPosition().shift(-1, -1);
+        int size = state.getEntityProperties(builderBase).getSize();
+        Position topRight = builderBase.getPosition().shift(size, size);
+        List<Position> onBorder = CellsUtils.getPositionsOnRectBorderCCW(bottomLeft, topRight);
+        Position bestPos = null;
+        int bestDist = Integer.MAX_VALUE;
+        for (Position pos : onBorder) {
+            if (state.insideMap(pos)) {
+                dijkstra.getFirstPathOnPath(pos, Integer.MAX_VALUE);
+                int dist = dijkstra.getDist(pos.getX(), pos.getY());
+                if (dist < bestDist) {
+                    bestDist = dist;
+                    bestPos = pos;
+                }
+            }
+        }
+        if (bestPos == null) {
+            return new ArrayList<>();
+        }
+        return constructPath(bestPos, dijkstra);
+    }
+
+    // the path only depends on the terrain and the builder base, MapLayers keeps it while both stay the same
+    FreedomPath(State state, MapHelper mapHelper) {
+        this.state = state;
+        this.mapHelper = mapHelper;
 
+        this.onPath = CachedArrays.getNewIntArray(CompressedCoords.getCells());
         final Entity builderBase = getBuilderBase(state);
         path = new ArrayList<>();
         if (builderBase != null) {
-            Position bottomLeft = builderBase.getPosition().shift(-1, -1);
-            int size = state.getEntityProperties(builderBase).getSize();
-            Position topRight = builderBase.getPosition().shift(size, size);
-            List<Position> onBorder = CellsUtils.getPositionsOnRectBorderCCW(bottomLeft, topRight);
-            Position bestPos = null;
-            int bestDist = Integer.MAX_VALUE;
-            for (Position pos : onBorder) {
-                if (state.insideMap(pos)) {
-                    dijkstra.getFirstPathOnPath(pos, Integer.MAX_VALUE);
-                    int dist = dijkstra.getDist(pos.getX(), pos.getY());
-                    if (dist < bestDist) {
-                        bestDist = dist;
-                        bestPos = pos;
-                    }
-                }
+            final List<Position> cachedPath = mapHelper.layers.getCachedFreedomPath(builderBase.getPosition());
+            if (cachedPath != null) {
+                path = cachedPath;
+            } else {
+                path = computePath(state, builderBase);
+                mapHelper.layers.cacheFreedomPath(builderBase.getPosition(), path);
             }
-            if (bestPos != null) {
-                path = constructPath(bestPos, dijkstra);
-                for (Position pos : path) {
-                    onPath.put(CompressedCoords.compress(pos), 1);
-                }
+            for (Position pos : path) {
+                onPath.put(CompressedCoords.compress(pos), 1);
             }
         }
     }
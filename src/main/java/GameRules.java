@@ -0,0 +1,66 @@
+import model.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Parameters of a local game for {@link Simulator}. Entity properties are the ones the official server sends, the
+ * starting position is a simplified version of the round one map: every player has built bases and a few builders in
+ * its corner, resources are random clusters mirrored between the corners.
+ */
+class GameRules {
+    final int mapSize;
+    final int playersCount;
+    final boolean fogOfWar;
+    final int maxTickCount;
+    final int maxPathfindNodes;
+    final int initialResources;
+    final int initialBuilders;
+    // resource clusters per map quarter
+    final int resourceClusters;
+    final Map<EntityType, EntityProperties> entityProperties;
+
+    GameRules(int mapSize, int playersCount, boolean fogOfWar, int maxTickCount, int maxPathfindNodes,
+              int initialResources, int initialBuilders, int resourceClusters) {
+        if (playersCount != 2 && playersCount != 4) {
+            throw new AssertionError("Only 2 or 4 players are supported: " + playersCount);
+        }
+        this.mapSize = mapSize;
+        this.playersCount = playersCount;
+        this.fogOfWar = fogOfWar;
+        this.maxTickCount = maxTickCount;
+        this.maxPathfindNodes = maxPathfindNodes;
+        this.initialResources = initialResources;
+        this.initialBuilders = initialBuilders;
+        this.resourceClusters = resourceClusters;
+        this.entityProperties = createEntityProperties();
+    }
+
+    static GameRules fourPlayers() {
+        return new GameRules(80, 4, true, 1000, 1000, 0, 5, 30);
+    }
+
+    static GameRules twoPlayers() {
+        return new GameRules(80, 2, true, 1000, 1000, 0, 5, 30);
+    }
+
+    EntityProperties getProperties(EntityType entityType) {
+        return entityProperties.get(entityType);
+    }
+
+    static Map<EntityType, EntityProperties> createEntityProperties() {
+        final EntityType[] buildingsToRepair = {EntityType.HOUSE, EntityType.WALL, EntityType.BUILDER_BASE, EntityType.MELEE_BASE, EntityType.RANGED_BASE, EntityType.TURRET};
+        Map<EntityType, EntityProperties> properties = new HashMap<>();
+        properties.put(EntityType.WALL, new EntityProperties(1, 10, 10, false, 0, 0, 50, 10, 2, 0, null, null, null));
+        properties.put(EntityType.HOUSE, new EntityProperties(3, 50, 50, false, 5, 0, 50, 50, 5, 0, null, null, null));
+        properties.put(EntityType.BUILDER_BASE, new EntityProperties(5, 500, 500, false, 5, 0, 300, 500, 5, 0, new BuildProperties(new EntityType[]{EntityType.BUILDER_UNIT}, null), null, null));
+        properties.put(EntityType.BUILDER_UNIT, new EntityProperties(1, 10, 10, true, 0, 1, 10, 10, 10, 0, new BuildProperties(buildingsToRepair, 5), new AttackProperties(1, 1, true), new RepairProperties(buildingsToRepair, 1)));
+        properties.put(EntityType.MELEE_BASE, new EntityProperties(5, 500, 500, false, 5, 0, 300, 500, 5, 0, new BuildProperties(new EntityType[]{EntityType.MELEE_UNIT}, null), null, null));
+        properties.put(EntityType.MELEE_UNIT, new EntityProperties(1, 20, 20, true, 0, 1, 50, 20, 10, 0, null, new AttackProperties(1, 5, false), null));
+        properties.put(EntityType.RANGED_BASE, new EntityProperties(5, 500, 500, false, 5, 0, 300, 500, 5, 0, new BuildProperties(new EntityType[]{EntityType.RANGED_UNIT}, null), null, null));
+        properties.put(EntityType.RANGED_UNIT, new EntityProperties(1, 30, 30, true, 0, 1, 10, 30, 10, 0, null, new AttackProperties(5, 5, false), null));
+        properties.put(EntityType.RESOURCE, new EntityProperties(1, 0, 0, false, 0, 0, 30, 0, 0, 1, null, null, null));
+        properties.put(EntityType.TURRET, new EntityProperties(2, 50, 50, false, 0, 0, 100, 50, 10, 0, null, new AttackProperties(5, 5, false), null));
+        return properties;
+    }
+}
@@ -263,7 +263,7 @@ public class GlobalStrategy {
     boolean existBuilderUnderAttack() {
         for (Entity builder : state.myEntitiesByType.get(BUILDER_UNIT)) {
             final Position pos = builder.getPosition();
-            if (state.map.underAttack[pos.getX()][pos.getY()].isUnderAttack()) {
+            if (state.map.getUnderAttack(pos.getX(), pos.getY()).isUnderAttack()) {
                 return true;
             }
         }
@@ -0,0 +1,102 @@
+import model.Action;
+import model.PlayerView;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+/**
+ * {@link MyStrategy} loaded by its own class loader, so its static state (special agents, opponent tracker, cached
+ * arrays, profiler) isn't shared with other players of the same {@link Simulator} game. Only {@code model} and
+ * {@code util} classes come from the parent loader, they are the protocol between the simulator and the strategy.
+ * The class path may also point to an older version saved by {@code save_version.sh}.
+ */
+class IsolatedStrategy implements Simulator.SimulatedPlayer, Closeable {
+    private static class StrategyClassLoader extends URLClassLoader {
+        StrategyClassLoader(URL classPath, ClassLoader parent) {
+            super(new URL[]{classPath}, parent);
+        }
+
+        private static boolean isShared(String name) {
+            return name.startsWith("model.") || name.startsWith("util.") || name.startsWith("java.")
+                    || name.startsWith("javax.") || name.startsWith("jdk.") || name.startsWith("sun.") || name.startsWith("com.sun.");
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (isShared(name)) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> result = findLoadedClass(name);
+                if (result == null) {
+                    try {
+                        result = findClass(name);
+                    } catch (ClassNotFoundException e) {
+                        result = super.loadClass(name, false);
+                    }
+                }
+                if (resolve) {
+                    resolveClass(result);
+                }
+                return result;
+            }
+        }
+    }
+
+    private final StrategyClassLoader classLoader;
+    private final Object strategy;
+    private final Method getAction;
+
+    IsolatedStrategy(URL classPath) {
+        this.classLoader = new StrategyClassLoader(classPath, IsolatedStrategy.class.getClassLoader());
+        try {
+            final Class<?> strategyClass = classLoader.loadClass("MyStrategy");
+            final Class<?> debugInterfaceClass = classLoader.loadClass("DebugInterface");
+            this.getAction = strategyClass.getMethod("getAction", PlayerView.class, debugInterfaceClass);
+            this.getAction.setAccessible(true);
+            final Constructor<?> constructor = strategyClass.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            this.strategy = constructor.newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Can't load MyStrategy from " + classPath, e);
+        }
+    }
+
+    static URL currentClassPath() {
+        return IsolatedStrategy.class.getProtectionDomain().getCodeSource().getLocation();
+    }
+
+    static URL toUrl(String path) throws MalformedURLException {
+        return new File(path).toURI().toURL();
+    }
+
+    @Override
+    public Action getAction(PlayerView playerView) {
+        try {
+            return (Action) getAction.invoke(strategy, playerView, null);
+        } catch (InvocationTargetException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        classLoader.close();
+    }
+}
@@ -0,0 +1,68 @@
+import model.ClientMessage;
+import model.ServerMessage;
+import util.StreamUtil;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+
+/**
+ * Local stand-in for the game server: accepts one client, reads its token and plays back a recording made with
+ * {@code -DrecordTicks} (see {@link TickRecorder}). Every recorded GetAction is sent once the client has answered the
+ * previous one, and the game ends with a Finish message. This checks the socket and decoding path of {@link Runner}
+ * without the real server:
+ * <pre>
+ *     java -DrecordTicks=game Runner 127.0.0.1 31001 &lt;token&gt;    (against the real server)
+ *     java LoopbackServer game 31001
+ *     java Runner 127.0.0.1 31001
+ * </pre>
+ * The client must run without {@code with-debug}: debug state requests can't be answered.
+ */
+public class LoopbackServer {
+    private static void write(OutputStream outputStream, ByteBuffer bytes) throws IOException {
+        byte[] array = new byte[bytes.remaining()];
+        bytes.get(array);
+        outputStream.write(array);
+    }
+
+    private static void readAction(InputStream inputStream) throws IOException {
+        while (true) {
+            ClientMessage message = ClientMessage.readFrom(inputStream);
+            if (message instanceof ClientMessage.ActionMessage) {
+                return;
+            }
+            if (message instanceof ClientMessage.RequestDebugState) {
+                throw new IOException("Client requested debug state, run it without with-debug");
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: LoopbackServer <recording path prefix> [port]");
+            return;
+        }
+        final int port = args.length < 2 ? 31001 : Integer.parseInt(args[1]);
+        try (TickRecorder.Recording recording = new TickRecorder.Recording(args[0]);
+             ServerSocket serverSocket = new ServerSocket(port)) {
+            System.err.println("Waiting for a client on port " + port);
+            try (Socket socket = serverSocket.accept()) {
+                socket.setTcpNoDelay(true);
+                final InputStream inputStream = new BufferedInputStream(socket.getInputStream());
+                final OutputStream outputStream = new BufferedOutputStream(socket.getOutputStream());
+                String token = StreamUtil.readString(inputStream);
+                System.err.println("Client connected with token " + token);
+                final long startTime = System.nanoTime();
+                for (int tick = 0; tick < recording.getTickCount(); tick++) {
+                    write(outputStream, recording.getServerMessage(tick));
+                    outputStream.flush();
+                    readAction(inputStream);
+                }
+                new ServerMessage.Finish().writeTo(outputStream);
+                outputStream.flush();
+                System.err.printf("Played %d ticks in %.1f ms%n", recording.getTickCount(), (System.nanoTime() - startTime) / 1e6);
+            }
+        }
+    }
+}
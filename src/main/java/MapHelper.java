@@ -6,22 +6,23 @@ import model.Position;
 import java.util.*;
 
 public class MapHelper {
-    private static final int RANGED_UNIT_RANGE_FOR_BUILDERS = 15;
-    final Entity[][] entitiesByPos;
-    final int[][] enemiesPrefSum;
-    final int[][] distToClosestEnemyRangedUnit;
+    static final int RANGED_UNIT_RANGE_FOR_BUILDERS = 15;
+    // grids of the layers, indexed by CompressedCoords
+    final boolean[] wall;
+    final Entity[] entitiesByPos;
     final State state;
+    final MapLayers layers;
     final List<Position> safePositionsToMine;
     final ProtectionBalance protectionBalance;
-    final CachedArrays.IntArray willBeUsedByBuilders;
+    final Bitboard willBeUsedByBuilders;
     final FreedomPath freedomPath;
 
     public void markCellAsWillBeUsedByBuilder(Position targetCell) {
-        willBeUsedByBuilders.put(CompressedCoords.compress(targetCell), 1);
+        willBeUsedByBuilders.set(targetCell.getX(), targetCell.getY());
     }
 
     public boolean willBeUsedByBuilder(int x, int y) {
-        return willBeUsedByBuilders.contains(CompressedCoords.compress(x, y));
+        return willBeUsedByBuilders.get(x, y);
     }
 
     public void markCellsWillBeUsedForBuilding(Position where, EntityType what) {
@@ -37,7 +38,7 @@ public class MapHelper {
         Map<Position, Integer> seen = new HashMap<>();
         for (Position pos : checkWhereToGo) {
             if (insideMap(pos.getX(), pos.getY())) {
-                Entity there = entitiesByPos[pos.getX()][pos.getY()];
+                Entity there = getEntity(pos.getX(), pos.getY());
                 if (there != null) {
                     continue;
                 }
@@ -77,7 +78,9 @@ public class MapHelper {
         MY_WORKING_BUILDER,
         MY_ATTACKING_UNIT,
         MY_EATING_FOOD_RANGED_UNIT,
-        ENEMY_BUILDING
+        ENEMY_BUILDING;
+
+        static final CAN_GO_THROUGH[] VALUES = values();
     }
 
     enum UNDER_ATTACK {
@@ -85,6 +88,8 @@ public class MapHelper {
         UNDER_ATTACK,
         UNDER_ATTACK_DO_NOT_GO_THERE;
 
+        static final UNDER_ATTACK[] VALUES = values();
+
         public boolean isUnderAttack() {
             return switch (this) {
                 case SAFE -> false;
@@ -93,11 +98,15 @@ public class MapHelper {
         }
     }
 
-    final CAN_GO_THROUGH[][] canGoThrough;
+    final byte[] canGoThrough;
     // means - will it be under attack on next turn?
-    final UNDER_ATTACK[][] underAttack;
+    final byte[] underAttack;
+    final int mapSize;
+    // CompressedCoords offsets of dirsUp
+    final int[] dirsUpOffsets;
     final int myPlayerId;
     final BfsQueue bfs;
+    final BitboardBfs bitboardBfs;
     final Dijkstra dijkstra;
 
     private boolean isEntityCouldBeAttacked(final Entity entity, boolean okToAttackTurrets) {
@@ -124,82 +133,21 @@ public class MapHelper {
         return true;
     }
 
-    private CAN_GO_THROUGH computeCanGoThrough(final Entity entity) {
-        if (entity.getPlayerId() == null) {
-            return CAN_GO_THROUGH.FOOD;
-        }
-        if (entity.getPlayerId() == myPlayerId) {
-            if (entity.getEntityType().isBuilding()) {
-                return CAN_GO_THROUGH.MY_BUILDING;
-            }
-            if (entity.getEntityType() == EntityType.BUILDER_UNIT) {
-                return CAN_GO_THROUGH.MY_BUILDER;
-            }
-            return CAN_GO_THROUGH.EMPTY_CELL;
-        } else {
-            if (entity.getEntityType().isBuilding()) {
-                return CAN_GO_THROUGH.ENEMY_BUILDING;
-            } else {
-                return CAN_GO_THROUGH.EMPTY_CELL;
-            }
-        }
-    }
-
     private void updateUnderAttack(int x, int y, UNDER_ATTACK type) {
         if (type == UNDER_ATTACK.UNDER_ATTACK_DO_NOT_GO_THERE) {
-            underAttack[x][y] = type;
+            layers.setUnderAttackForTick(x, y, type);
             return;
         }
-        if (underAttack[x][y] == UNDER_ATTACK.UNDER_ATTACK_DO_NOT_GO_THERE) {
+        final UNDER_ATTACK current = getUnderAttack(x, y);
+        if (current == UNDER_ATTACK.UNDER_ATTACK_DO_NOT_GO_THERE) {
             return;
         }
         if (type == UNDER_ATTACK.UNDER_ATTACK) {
-            if (underAttack[x][y] == UNDER_ATTACK.SAFE) {
-                underAttack[x][y] = UNDER_ATTACK.UNDER_ATTACK;
+            if (current == UNDER_ATTACK.SAFE) {
+                layers.setUnderAttackForTick(x, y, UNDER_ATTACK.UNDER_ATTACK);
             } else {
                 // if cell is under attack by more than one unit -> do not go there.
-                underAttack[x][y] = UNDER_ATTACK.UNDER_ATTACK_DO_NOT_GO_THERE;
-            }
-        }
-    }
-
-    private void markUnderAttack(final Entity entity, boolean notGoThere) {
-        int damageRange = state.getEntityProperties(entity).getAttack().getAttackRange();
-        if (!entity.getEntityType().isBuilding()) {
-            damageRange++;
-        }
-        final Position bottomLeft = entity.getPosition();
-        final int entitySize = state.getEntityProperties(entity).getSize();
-        final Position topRight = bottomLeft.shift(entitySize - 1, entitySize - 1);
-        for (int x = bottomLeft.getX() - damageRange; x <= topRight.getX() + damageRange; x++) {
-            for (int y = bottomLeft.getY() - damageRange; y <= topRight.getY() + damageRange; y++) {
-                if (!insideMap(x, y)) {
-                    continue;
-                }
-                if (CellsUtils.distBetweenEntityAndPos(state, entity, x, y) <= damageRange) {
-                    if (notGoThere) {
-                        updateUnderAttack(x, y, UNDER_ATTACK.UNDER_ATTACK_DO_NOT_GO_THERE);
-                    } else {
-                        updateUnderAttack(x, y, UNDER_ATTACK.UNDER_ATTACK);
-                    }
-                }
-            }
-        }
-    }
-
-    private void markSeeCells(final Entity entity) {
-        int sightRange = state.getEntityProperties(entity).getSightRange();
-        final Position bottomLeft = entity.getPosition();
-        final int entitySize = state.getEntityProperties(entity).getSize();
-        final Position topRight = bottomLeft.shift(entitySize - 1, entitySize - 1);
-        for (int x = bottomLeft.getX() - sightRange; x <= topRight.getX() + sightRange; x++) {
-            for (int y = bottomLeft.getY() - sightRange; y <= topRight.getY() + sightRange; y++) {
-                if (!insideMap(x, y)) {
-                    continue;
-                }
-                if (CellsUtils.distBetweenEntityAndPos(state, entity, x, y) <= sightRange) {
-                    canGoThrough[x][y] = CAN_GO_THROUGH.EMPTY_CELL;
-                }
+                layers.setUnderAttackForTick(x, y, UNDER_ATTACK.UNDER_ATTACK_DO_NOT_GO_THERE);
             }
         }
     }
@@ -208,121 +156,49 @@ public class MapHelper {
         this.state = state;
         final PlayerView playerView = state.playerView;
         this.myPlayerId = playerView.getMyId();
-        final int size = playerView.getMapSize();
-        entitiesByPos = new Entity[size][size];
-        canGoThrough = new CAN_GO_THROUGH[size][size];
-        underAttack = new UNDER_ATTACK[size][size];
-        for (CAN_GO_THROUGH[] pass : canGoThrough) {
-            Arrays.fill(pass, CAN_GO_THROUGH.UNKNOWN);
-        }
-        for (Entity entity : state.myEntities) {
-            markSeeCells(entity);
-        }
-        for (int i = 0; i < size; i++) {
-            Arrays.fill(underAttack[i], UNDER_ATTACK.SAFE);
-        }
-        enemiesPrefSum = new int[size + 1][size + 1];
-        for (Entity entity : playerView.getEntities()) {
-            final Position pos = entity.getPosition();
-            final int entitySize = playerView.getEntityProperties().get(entity.getEntityType()).getSize();
-            for (int dx = 0; dx < entitySize; dx++) {
-                for (int dy = 0; dy < entitySize; dy++) {
-                    final int x = pos.getX() + dx;
-                    final int y = pos.getY() + dy;
-                    entitiesByPos[x][y] = entity;
-                    canGoThrough[x][y] = computeCanGoThrough(entity);
-                }
-            }
-            if (isEntityCouldBeAttacked(entity, true)) {
-                if (entity.getEntityType() != EntityType.TURRET || !entity.isActive()) {
-                    enemiesPrefSum[pos.getX() + 1][pos.getY() + 1]++;
-                }
-
-                if (isEnemyWarUnit(entity) || entity.getEntityType() == EntityType.TURRET) {
-                    boolean notGoThere = entity.getEntityType() == EntityType.TURRET && entity.isActive();
-                    markUnderAttack(entity, notGoThere);
-                }
-            }
-        }
-        for (int x = 1; x <= size; x++) {
-            for (int y = 1; y <= size; y++) {
-                enemiesPrefSum[x][y] += enemiesPrefSum[x - 1][y];
-                enemiesPrefSum[x][y] += enemiesPrefSum[x][y - 1];
-                enemiesPrefSum[x][y] -= enemiesPrefSum[x - 1][y - 1];
-            }
-        }
-        final int totalCells = size * size;
-        this.bfs = new BfsQueue(totalCells);
+        // without a strategy-wide instance (debug updates, benchmarks) the layers are built from scratch
+        this.layers = state.mapLayers != null ? state.mapLayers : new MapLayers();
+        layers.update(playerView);
+        wall = layers.wall;
+        entitiesByPos = layers.entitiesByPos;
+        canGoThrough = layers.canGoThrough;
+        underAttack = layers.underAttack;
+        mapSize = playerView.getMapSize();
+        dirsUpOffsets = layers.dirsUpOffsets;
+        this.bfs = layers.bfs;
+        this.bitboardBfs = layers.bitboardBfs;
         this.dijkstra = new Dijkstra(this);
-        this.distToClosestEnemyRangedUnit = computeDistToClosesEnemyRangedUnit();
-        this.safePositionsToMine = computeSafePositionsToMine();
+        this.safePositionsToMine = layers.getSafePositionsToMine();
         this.protectionBalance = new ProtectionBalance(this);
-        final int mapSize = state.playerView.getMapSize();
-        willBeUsedByBuilders = new CachedArrays.IntArray(mapSize * mapSize);
+        willBeUsedByBuilders = new Bitboard(mapSize);
         freedomPath = new FreedomPath(state, this);
     }
 
-    private int[][] computeDistToClosesEnemyRangedUnit() {
-        final int mapSize = state.playerView.getMapSize();
-        int[][] dist = new int[mapSize][mapSize];
-        BfsQueue queue = findPathsToEnemyRangedUnits();
-        for (int x = 0; x < mapSize; x++) {
-            for (int y = 0; y < mapSize; y++) {
-                dist[x][y] = queue.getDist(x, y);
-            }
-        }
-        return dist;
+    public boolean isSafePositionToMine(int x, int y) {
+        return layers.isSafePositionToMine(x, y);
     }
 
-    public boolean isSafePositionToMine(int x, int y) {
-        if (entitiesByPos[x][y] != null) {
-            return false;
-        }
-        if (distToClosestEnemyRangedUnit[x][y] <= RANGED_UNIT_RANGE_FOR_BUILDERS) {
-            return false;
-        }
-        if (canGoThrough[x][y] == CAN_GO_THROUGH.UNKNOWN) {
-            return false;
-        }
-        int[] dx = Directions.dx;
-        int[] dy = Directions.dy;
-        for (int it = 0; it < dx.length; it++) {
-            int nx = x + dx[it];
-            int ny = y + dy[it];
-            if (!insideMap(nx, ny)) {
-                continue;
-            }
-            if (canMineThisCell(nx, ny)) {
-                return true;
-            }
-        }
-        return false;
+    public boolean insideMap(final int x, final int y) {
+        return x >= 0 && x < mapSize && y >= 0 && y < mapSize;
     }
 
-    private List<Position> computeSafePositionsToMine() {
-        List<Position> safePositions = new ArrayList<>();
-        final int mapSize = state.playerView.getMapSize();
-        for (int x = 0; x < mapSize; x++) {
-            for (int y = 0; y < mapSize; y++) {
-                if (!isSafePositionToMine(x, y)) {
-                    continue;
-                }
+    public Entity getEntity(final int x, final int y) {
+        return entitiesByPos[CompressedCoords.compress(x, y)];
+    }
 
-                safePositions.add(new Position(x, y));
-            }
-        }
-        return safePositions;
+    public CAN_GO_THROUGH getCanGoThrough(final int x, final int y) {
+        return CAN_GO_THROUGH.VALUES[canGoThrough[CompressedCoords.compress(x, y)]];
     }
 
-    public boolean insideMap(final int x, final int y) {
-        return x >= 0 && x < entitiesByPos.length && y >= 0 && y < entitiesByPos[x].length;
+    public UNDER_ATTACK getUnderAttack(final int x, final int y) {
+        return UNDER_ATTACK.VALUES[underAttack[CompressedCoords.compress(x, y)]];
     }
 
     public boolean canMineThisCell(final int x, final int y) {
         if (!insideMap(x, y)) {
             return false;
         }
-        Entity entity = entitiesByPos[x][y];
+        Entity entity = getEntity(x, y);
         return (entity != null && entity.getEntityType() == EntityType.RESOURCE);
     }
 
@@ -337,7 +213,7 @@ public class MapHelper {
                 if (!insideMap(x, y)) {
                     continue;
                 }
-                Entity entity = entitiesByPos[x][y];
+                Entity entity = getEntity(x, y);
                 if (!isEntityCouldBeAttacked(entity, true)) {
                     continue;
                 }
@@ -352,22 +228,14 @@ public class MapHelper {
         if (coord < 0) {
             return 0;
         }
-        if (coord >= entitiesByPos.length) {
-            return entitiesByPos.length - 1;
+        if (coord >= mapSize) {
+            return mapSize - 1;
         }
         return coord;
     }
 
-    private int getNumEnemiesInRect(int maxX, int maxY) {
-        return enemiesPrefSum[maxX + 1][maxY + 1];
-    }
-
     private int getNumEnemiesInRect(int frX, int toX, int frY, int toY) {
-        int res = getNumEnemiesInRect(toX, toY);
-        res -= getNumEnemiesInRect(frX - 1, toY);
-        res -= getNumEnemiesInRect(toX, frY - 1);
-        res += getNumEnemiesInRect(frX - 1, frY - 1);
-        return res;
+        return layers.enemies.rectSum(frX, toX, frY, toY);
     }
 
     private boolean anyEnemyInRect(int frX, int toX, int frY, int toY) {
@@ -382,15 +250,15 @@ public class MapHelper {
         List<Entity> enemies = new ArrayList<>();
         for (int y = frY; y <= toY; y++) {
             for (int x : new int[]{frX, toX}) {
-                if (insideMap(x, y) && isEntityCouldBeAttacked(entitiesByPos[x][y], false)) {
-                    enemies.add(entitiesByPos[x][y]);
+                if (insideMap(x, y) && isEntityCouldBeAttacked(getEntity(x, y), false)) {
+                    enemies.add(getEntity(x, y));
                 }
             }
         }
         for (int x = frX + 1; x < toX; x++) {
             for (int y : new int[]{frY, toY}) {
-                if (insideMap(x, y) && isEntityCouldBeAttacked(entitiesByPos[x][y], false)) {
-                    enemies.add(entitiesByPos[x][y]);
+                if (insideMap(x, y) && isEntityCouldBeAttacked(getEntity(x, y), false)) {
+                    enemies.add(getEntity(x, y));
                 }
             }
         }
@@ -399,7 +267,7 @@ public class MapHelper {
 
     // TODO: this function uses wrong metric, because I am lazy
     public Entity findClosestEnemy(final Position pos) {
-        final int maxR = entitiesByPos.length + entitiesByPos[0].length + 3;
+        final int maxR = mapSize + mapSize + 3;
         int l = 0, r = maxR;
         int x = pos.getX();
         int y = pos.getY();
@@ -421,9 +289,9 @@ public class MapHelper {
             for (int xx = frX; xx <= toX; xx++) {
                 for (int yy = frY; yy <= toY; yy++) {
                     if (insideMap(xx, yy)) {
-                        if (isEntityCouldBeAttacked(entitiesByPos[xx][yy], false)) {
+                        if (isEntityCouldBeAttacked(getEntity(xx, yy), false)) {
                             throw new AssertionError("Found enemy: " + xx + " " + yy + ", " +
-                                    entitiesByPos[xx][yy]);
+                                    getEntity(xx, yy));
                         }
                     }
                 }
@@ -610,7 +478,7 @@ public class MapHelper {
 
         @Override
         public boolean shouldEnd(int x, int y, int dist) {
-            Entity whatThere = map.entitiesByPos[x][y];
+            Entity whatThere = map.getEntity(x, y);
             if (map.isEnemyWarUnit(whatThere)) {
                 foundEnemy = true;
             }
@@ -618,48 +486,6 @@ public class MapHelper {
         }
     }
 
-    static class PathToResourcesBfsHandler implements BfsHandler {
-        final MapHelper mapHelper;
-
-        public PathToResourcesBfsHandler(MapHelper mapHelper) {
-            this.mapHelper = mapHelper;
-        }
-
-        @Override
-        public boolean canGoThrough(CAN_GO_THROUGH type, UNDER_ATTACK underAttack, int x, int y, int dist) {
-            switch (underAttack) {
-                case SAFE:
-                    break;
-                case UNDER_ATTACK, UNDER_ATTACK_DO_NOT_GO_THERE:
-                    return false;
-            }
-            if (mapHelper.willBeUsedByBuilder(x, y)) {
-                return false;
-            }
-            return switch (type) {
-                case EMPTY_CELL, UNKNOWN, MY_ATTACKING_UNIT, MY_EATING_FOOD_RANGED_UNIT -> true;
-                case MY_BUILDING, FOOD, MY_WORKING_BUILDER, ENEMY_BUILDING, MY_BUILDER -> false;
-            };
-        }
-
-        @Override
-        public boolean shouldEnd(int x, int y, int dist) {
-            return false;
-        }
-    }
-
-    static class PathToEnemyUnitsBfsHandler implements BfsHandler {
-        @Override
-        public boolean canGoThrough(CAN_GO_THROUGH type, UNDER_ATTACK underAttack, int x, int y, int dist) {
-            return true;
-        }
-
-        @Override
-        public boolean shouldEnd(int x, int y, int dist) {
-            return false;
-        }
-    }
-
     static class PathToBuildersBfsHandler implements BfsHandler {
         final int maxDist;
         final Set<Entity> builders;
@@ -694,10 +520,10 @@ public class MapHelper {
                 return true;
             }
             final MapHelper map = state.map;
-            if (map.canGoThrough[x][y] != CAN_GO_THROUGH.MY_BUILDER) {
+            if (map.getCanGoThrough(x, y) != CAN_GO_THROUGH.MY_BUILDER) {
                 return false;
             }
-            Entity entity = map.entitiesByPos[x][y];
+            Entity entity = map.getEntity(x, y);
             if (entity.getEntityType() != EntityType.BUILDER_UNIT) {
                 throw new AssertionError("Expected builder, found something else");
             }
@@ -706,14 +532,23 @@ public class MapHelper {
         }
     }
 
-    class BfsQueue implements QueueDist {
+    static class BfsQueue implements QueueDist {
         int qIt, qSz;
         final int[] queue;
         final int[] visited;
         final int[] dist;
         int currentVisitedIter;
-
-        BfsQueue(int totalCells) {
+        private final boolean[] wall;
+        private final byte[] canGoThrough;
+        private final byte[] underAttack;
+        private final int[] dirsUpOffsets;
+
+        BfsQueue(MapLayers layers) {
+            final int totalCells = CompressedCoords.getCells();
+            this.wall = layers.wall;
+            this.canGoThrough = layers.canGoThrough;
+            this.underAttack = layers.underAttack;
+            this.dirsUpOffsets = layers.dirsUpOffsets;
             this.queue = new int[totalCells];
             this.visited = new int[totalCells];
             this.dist = new int[totalCells];
@@ -755,19 +590,17 @@ public class MapHelper {
                 Dir[] dirs = dirsUp;
                 final int nextDist = dist[compressedCoord] + 1;
                 for (int it = 0; it < dirs.length; it++) {
-                    int nx = x + dirs[it].dx;
-                    int ny = y + dirs[it].dy;
-                    if (!insideMap(nx, ny)) {
-                        continue;
-                    }
-                    int nextCompressedCoord = CompressedCoords.compress(nx, ny);
-                    if (isVisited(nextCompressedCoord)) {
+                    final int nextCompressedCoord = compressedCoord + dirsUpOffsets[it];
+                    if (wall[nextCompressedCoord] || isVisited(nextCompressedCoord)) {
                         continue;
                     }
+                    int nx = x + dirs[it].dx;
+                    int ny = y + dirs[it].dy;
                     if (handler.shouldEnd(nx, ny, nextDist)) {
                         return;
                     }
-                    if (!handler.canGoThrough(canGoThrough[nx][ny], underAttack[nx][ny], nx, ny, nextDist)) {
+                    if (!handler.canGoThrough(CAN_GO_THROUGH.VALUES[canGoThrough[nextCompressedCoord]],
+                            UNDER_ATTACK.VALUES[underAttack[nextCompressedCoord]], nx, ny, nextDist)) {
                         continue;
                     }
                     visit(nextCompressedCoord, nextDist);
@@ -833,8 +666,8 @@ public class MapHelper {
                 continue;
             }
             if (insideMap(nx, ny) && distFromNext + bfs.getEdgeCost(nx, ny) <= totalDist) {
-                if (underAttack[nx][ny] != UNDER_ATTACK.UNDER_ATTACK_DO_NOT_GO_THERE || okGoToNotGoThere) {
-                    if (canGoThereOnCurrentTurn(canGoThrough[nx][ny], canAttackResources, okGoThrougMyBuilders)) {
+                if (getUnderAttack(nx, ny) != UNDER_ATTACK.UNDER_ATTACK_DO_NOT_GO_THERE || okGoToNotGoThere) {
+                    if (canGoThereOnCurrentTurn(getCanGoThrough(nx, ny), canAttackResources, okGoThrougMyBuilders)) {
                         options.add(new FirstMoveOption(new Position(nx, ny), distFromNext));
                     }
                 }
@@ -881,7 +714,7 @@ public class MapHelper {
     }
 
     public void updateCellCanGoThrough(final Position pos, final CAN_GO_THROUGH type) {
-        canGoThrough[pos.getX()][pos.getY()] = type;
+        layers.setCanGoThroughForTick(pos.getX(), pos.getY(), type);
     }
 
     /**
@@ -898,9 +731,24 @@ public class MapHelper {
         if (startPos.distTo(targetPos) == 0) {
             return new ArrayList<>();
         }
+        StrategyEvents.DijkstraSearch event = new StrategyEvents.DijkstraSearch();
+        event.begin();
         final PathToTargetBfsHandler handler = new PathToTargetBfsHandler(startPos, skipLastNCells, okGoToNotGoThere, okGoThroughMyBuilders, okGoUnderAttack, okEatFood);
-        QueueDist queue = dijkstra.findFirstCellOnPath(startPos, targetPos, handler, maxDist, state.playerView.getMapSize());
-        return findFirstCellOnPath(startPos, targetPos, queue.getDist(startPos.getX(), startPos.getY()), queue, true, okGoThroughMyBuilders, okGoToNotGoThere);
+        QueueDist queue = dijkstra.findFirstCellOnPath(startPos, targetPos, handler, maxDist);
+        final int dist = queue.getDist(startPos.getX(), startPos.getY());
+        final List<Position> result = findFirstCellOnPath(startPos, targetPos, dist, queue, true, okGoThroughMyBuilders, okGoToNotGoThere);
+        if (event.shouldCommit()) {
+            event.startX = startPos.getX();
+            event.startY = startPos.getY();
+            event.targetX = targetPos.getX();
+            event.targetY = targetPos.getY();
+            event.maxDist = maxDist;
+            event.dist = dist;
+            event.nodesExpanded = dijkstra.lastExpandedVertices;
+            event.cacheHit = dijkstra.lastCacheHit;
+            event.commit();
+        }
+        return result;
     }
 
 
@@ -918,30 +766,45 @@ public class MapHelper {
         return handler.foundEnemy;
     }
 
+    private static void commitBfsEvent(StrategyEvents.BfsSearch event, String query, int initialCells, int maxDist, BfsQueue queue, int results) {
+        event.query = query;
+        event.initialCells = initialCells;
+        event.maxDist = maxDist;
+        event.nodesExpanded = queue.qIt;
+        event.nodesVisited = queue.qSz;
+        event.results = results;
+        event.commit();
+    }
+
     private BfsQueue findPathsToCells(final List<Position> initialPositions, final BfsHandler handler) {
         bfs.run(initialPositions, handler);
         return bfs;
     }
 
-    public BfsQueue findPathsToResources() {
+    /**
+     * Distances from resources through safe cells which builders can walk through and which are not planned for
+     * other builders.
+     * <p>
+     * The result is the search object itself, kept between ticks: it is only valid until the next call.
+     */
+    public BitboardBfs findPathsToResources() {
         final List<Entity> resources = state.allResources;
         List<Position> initialPositions = new ArrayList<>();
         for (Entity resource : resources) {
             initialPositions.add(resource.getPosition());
         }
-        PathToResourcesBfsHandler handler = new PathToResourcesBfsHandler(this);
-        return findPathsToCells(initialPositions, handler);
-    }
-
-    public BfsQueue findPathsToEnemyRangedUnits() {
-        List<Position> initialPositions = new ArrayList<>();
-        for (Entity entity : state.allEnemiesWarUnits) {
-            if (entity.getEntityType() == EntityType.RANGED_UNIT) {
-                initialPositions.add(entity.getPosition());
-            }
+        final long[] passable = bitboardBfs.passable.bits;
+        final long[] empty = layers.canGoThroughBoards[CAN_GO_THROUGH.EMPTY_CELL.ordinal()].bits;
+        final long[] unknown = layers.canGoThroughBoards[CAN_GO_THROUGH.UNKNOWN.ordinal()].bits;
+        final long[] attackingUnit = layers.canGoThroughBoards[CAN_GO_THROUGH.MY_ATTACKING_UNIT.ordinal()].bits;
+        final long[] eatingFood = layers.canGoThroughBoards[CAN_GO_THROUGH.MY_EATING_FOOD_RANGED_UNIT.ordinal()].bits;
+        final long[] safe = layers.underAttackBoards[UNDER_ATTACK.SAFE.ordinal()].bits;
+        final long[] usedByBuilders = willBeUsedByBuilders.bits;
+        for (int i = 0; i < passable.length; i++) {
+            passable[i] = (empty[i] | unknown[i] | attackingUnit[i] | eatingFood[i]) & safe[i] & ~usedByBuilders[i];
         }
-        PathToEnemyUnitsBfsHandler handler = new PathToEnemyUnitsBfsHandler();
-        return findPathsToCells(initialPositions, handler);
+        bitboardBfs.run(initialPositions);
+        return bitboardBfs;
     }
 
     class PathsFromBuilders {
@@ -968,9 +831,15 @@ public class MapHelper {
     }
 
     public PathsFromBuilders findPathsToBuilding(final List<Position> initialPositions, final int maxDist, final int needBuilders) {
+        StrategyEvents.BfsSearch event = new StrategyEvents.BfsSearch();
+        event.begin();
         PathToBuildersBfsHandler handler = new PathToBuildersBfsHandler(maxDist, needBuilders, state);
         final BfsQueue queue = findPathsToCells(initialPositions, handler);
-        return new PathsFromBuilders(handler, queue);
+        final PathsFromBuilders result = new PathsFromBuilders(handler, queue);
+        if (event.shouldCommit()) {
+            commitBfsEvent(event, "findPathsToBuilding", initialPositions.size(), maxDist, queue, result.firstCellsInPath.size());
+        }
+        return result;
     }
 
     class PathSuggestion {
@@ -990,23 +859,17 @@ public class MapHelper {
         final int maxOptions;
         final int maxDist;
 
-        int[] dx = Directions.dx;
-        int[] dy = Directions.dy;
-
         final Position startPos;
 
         boolean isTargetCell(int x, int y) {
             if (freedomPath.isOnPath(x, y)) {
                 return false;
             }
-            for (int it = 0; it < dx.length; it++) {
-                final int nx = x + dx[it];
-                final int ny = y + dy[it];
-                if (insideMap(nx, ny)) {
-                    final Entity entity = entitiesByPos[nx][ny];
-                    if (entity != null && entity.getEntityType() == EntityType.RESOURCE) {
-                        return true;
-                    }
+            final int compressedCoord = CompressedCoords.compress(x, y);
+            for (int offset : dirsUpOffsets) {
+                final Entity entity = entitiesByPos[compressedCoord + offset];
+                if (entity != null && entity.getEntityType() == EntityType.RESOURCE) {
+                    return true;
                 }
             }
             return false;
@@ -1045,7 +908,7 @@ public class MapHelper {
             if (targetCells.size() >= maxOptions) {
                 return true;
             }
-            if (isTargetCell(x, y) && canGoThrough(canGoThrough[x][y], underAttack[x][y], x, y, dist)) {
+            if (isTargetCell(x, y) && canGoThrough(getCanGoThrough(x, y), getUnderAttack(x, y), x, y, dist)) {
                 targetCells.add(new Position(x, y));
             }
             return dist > maxDist;
@@ -1053,6 +916,8 @@ public class MapHelper {
     }
 
     public List<PathSuggestion> findPathsToResourcesFromBuilder(final Position startPos, final int maxOptions, final int maxDist) {
+        StrategyEvents.BfsSearch event = new StrategyEvents.BfsSearch();
+        event.begin();
         PathsToResourcesFromBuilderBfsHandler handler = new PathsToResourcesFromBuilderBfsHandler(maxOptions, startPos, maxDist);
         final List<Position> initialPositions = new ArrayList<>();
         initialPositions.add(startPos);
@@ -1066,6 +931,9 @@ public class MapHelper {
             }
             pathSuggestions.add(new PathSuggestion(targetCell, firstCellOnPath, dist));
         }
+        if (event.shouldCommit()) {
+            commitBfsEvent(event, "findPathsToResourcesFromBuilder", initialPositions.size(), maxDist, queue, pathSuggestions.size());
+        }
         return pathSuggestions;
     }
 }
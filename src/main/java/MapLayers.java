@@ -0,0 +1,530 @@
+import model.Entity;
+import model.EntityProperties;
+import model.EntityTable;
+import model.EntityType;
+import model.PlayerView;
+import model.Position;
+import util.FenwickTree2D;
+import util.IntList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Map grids which live as long as the strategy instead of one tick. {@link #update(PlayerView)} takes the entities
+ * which appeared, disappeared, moved or got (in)active from {@link WorldDelta}, takes back their old contribution and
+ * adds the new one, so its cost depends on the number of changes and not on the map area.
+ * <p>
+ * Sight, attack zones, enemy ranged units nearby and {@link ProtectionBalance} are kept as counts of entities
+ * covering a cell; {@link MapHelper.CAN_GO_THROUGH} and {@link MapHelper.UNDER_ATTACK} are refreshed only where the
+ * counts or the occupant changed. Changes {@link MapHelper} makes during a tick are journaled and undone at the start
+ * of the next update. Layers derived from the whole map (safe cells to mine, top balances, {@link FreedomPath}) are
+ * recomputed only after something they depend on changed.
+ */
+public class MapLayers {
+    private static final int INITIAL_CAPACITY = 1 << 12;
+    private static final EntityType[] ENTITY_TYPES = EntityType.values();
+
+    private static final int SEEN = 0;
+    private static final int ATTACKED = 1;
+    private static final int ATTACKED_BY_TURRETS = 2;
+    private static final int ENEMY_RANGED_UNITS = 3;
+    private static final int BALANCE = 4;
+
+    private static final int JOURNAL_CAN_GO_THROUGH = 0;
+    private static final int JOURNAL_UNDER_ATTACK = 1;
+
+    private int mapSize = -1;
+    private int myPlayerId;
+    private Map<EntityType, EntityProperties> properties;
+
+    // all grids are indexed by CompressedCoords, enums are stored as ordinals
+    // true for the border cells around the map, so neighbour loops don't need bounds checks
+    boolean[] wall;
+    Entity[] entitiesByPos;
+    byte[] canGoThrough;
+    byte[] underAttack;
+    // the same two layers as one bitboard per value, for BitboardBfs
+    Bitboard[] canGoThroughBoards;
+    Bitboard[] underAttackBoards;
+    // enemies except active turrets, by bottom left corner
+    FenwickTree2D enemies;
+    short[] protectionBalance;
+    // CompressedCoords offsets of MapHelper.dirsUp
+    int[] dirsUpOffsets;
+    // searches keep their buffers between ticks
+    MapHelper.BfsQueue bfs;
+    BitboardBfs bitboardBfs;
+    private short[] seenBy;
+    private short[] attackedBy;
+    private short[] attackedByTurrets;
+    private short[] enemyRangedUnitsNearby;
+    private boolean[] safeToMine;
+
+    private final WorldDelta delta = new WorldDelta();
+
+    // what every entity currently contributes, by id; appliedEntity is null if nothing
+    private Entity[] appliedEntity = new Entity[INITIAL_CAPACITY];
+    private int[] appliedX = new int[INITIAL_CAPACITY];
+    private int[] appliedY = new int[INITIAL_CAPACITY];
+    private int[] appliedType = new int[INITIAL_CAPACITY];
+    private int[] appliedPlayer = new int[INITIAL_CAPACITY];
+    private boolean[] appliedActive = new boolean[INITIAL_CAPACITY];
+
+    // (kind, cell, old value ordinal) triples
+    private final IntList journal = new IntList();
+
+    private int dirtyVersion;
+    private int[] dirtyStamp;
+    private final IntList dirtyCells = new IntList();
+
+    // bumped when a cell changes in a way FreedomPath can notice
+    private int terrainVersion;
+    private int balanceVersion;
+    private int safeToMineVersion;
+    private int topBalancesVersion = -1;
+    private List<ProtectionBalance.TopBalance> topBalances;
+    private int safePositionsVersion = -1;
+    private List<Position> safePositions;
+    private int freedomPathVersion = -1;
+    private int freedomPathBaseX;
+    private int freedomPathBaseY;
+    private List<Position> freedomPath;
+
+    private void init(final int mapSize) {
+        this.mapSize = mapSize;
+        final int cells = CompressedCoords.getCells();
+        wall = new boolean[cells];
+        Arrays.fill(wall, true);
+        for (int y = 0; y < mapSize; y++) {
+            Arrays.fill(wall, CompressedCoords.compress(0, y), CompressedCoords.compress(mapSize, y), false);
+        }
+        entitiesByPos = new Entity[cells];
+        canGoThrough = new byte[cells];
+        underAttack = new byte[cells];
+        Arrays.fill(canGoThrough, (byte) MapHelper.CAN_GO_THROUGH.UNKNOWN.ordinal());
+        Arrays.fill(underAttack, (byte) MapHelper.UNDER_ATTACK.SAFE.ordinal());
+        canGoThroughBoards = new Bitboard[MapHelper.CAN_GO_THROUGH.VALUES.length];
+        for (int i = 0; i < canGoThroughBoards.length; i++) {
+            canGoThroughBoards[i] = new Bitboard(mapSize);
+        }
+        canGoThroughBoards[MapHelper.CAN_GO_THROUGH.UNKNOWN.ordinal()].setAll();
+        underAttackBoards = new Bitboard[MapHelper.UNDER_ATTACK.VALUES.length];
+        for (int i = 0; i < underAttackBoards.length; i++) {
+            underAttackBoards[i] = new Bitboard(mapSize);
+        }
+        underAttackBoards[MapHelper.UNDER_ATTACK.SAFE.ordinal()].setAll();
+        enemies = new FenwickTree2D(mapSize, mapSize);
+        protectionBalance = new short[cells];
+        seenBy = new short[cells];
+        attackedBy = new short[cells];
+        attackedByTurrets = new short[cells];
+        enemyRangedUnitsNearby = new short[cells];
+        safeToMine = new boolean[cells];
+        dirtyStamp = new int[cells];
+        dirsUpOffsets = new int[MapHelper.dirsUp.length];
+        for (int it = 0; it < dirsUpOffsets.length; it++) {
+            dirsUpOffsets[it] = CompressedCoords.offset(MapHelper.dirsUp[it].dx, MapHelper.dirsUp[it].dy);
+        }
+        bfs = new MapHelper.BfsQueue(this);
+        bitboardBfs = new BitboardBfs(mapSize);
+    }
+
+    private void ensureCapacity(int id) {
+        if (id < appliedEntity.length) {
+            return;
+        }
+        final int newLength = Math.max(appliedEntity.length * 2, id + 1);
+        appliedEntity = Arrays.copyOf(appliedEntity, newLength);
+        appliedX = Arrays.copyOf(appliedX, newLength);
+        appliedY = Arrays.copyOf(appliedY, newLength);
+        appliedType = Arrays.copyOf(appliedType, newLength);
+        appliedPlayer = Arrays.copyOf(appliedPlayer, newLength);
+        appliedActive = Arrays.copyOf(appliedActive, newLength);
+    }
+
+    void update(final PlayerView playerView) {
+        if (mapSize == -1) {
+            init(playerView.getMapSize());
+            myPlayerId = playerView.getMyId();
+        } else if (mapSize != playerView.getMapSize() || myPlayerId != playerView.getMyId()) {
+            throw new AssertionError("MapLayers can't be reused for another game");
+        }
+        properties = playerView.getEntityProperties();
+        rollbackJournal();
+        dirtyVersion++;
+        dirtyCells.clear();
+        delta.update(playerView);
+
+        final EntityTable table = playerView.getEntityTable();
+        final Entity[] entities = playerView.getEntities();
+        // everything that changed is taken away before anything is added, an entity can move to a cell another one
+        // has just left
+        removeAll(delta.removed);
+        removeAll(delta.moved);
+        removeAll(delta.activeChanged);
+        addAll(delta.spawned, table, entities);
+        addAll(delta.moved, table, entities);
+        addAll(delta.activeChanged, table, entities);
+        // without pooled decoding unchanged entities are new objects every tick, only the references are updated
+        for (int i = 0; i < table.size(); i++) {
+            final int id = table.getId(i);
+            if (appliedEntity[id] != entities[i]) {
+                repoint(id, entities[i]);
+            }
+        }
+
+        for (int i = 0; i < dirtyCells.size(); i++) {
+            final int cell = dirtyCells.get(i);
+            refreshSafeToMine(CompressedCoords.extractX(cell), CompressedCoords.extractY(cell));
+        }
+    }
+
+    private void removeAll(IntList ids) {
+        for (int i = 0; i < ids.size(); i++) {
+            final int id = ids.get(i);
+            if (appliedEntity[id] != null) {
+                remove(id);
+            }
+        }
+    }
+
+    private void addAll(IntList ids, EntityTable table, Entity[] entities) {
+        for (int i = 0; i < ids.size(); i++) {
+            final int id = ids.get(i);
+            ensureCapacity(id);
+            if (appliedEntity[id] == null) {
+                final int row = delta.getRow(id);
+                add(id, entities[row], table.getX(row), table.getY(row), table.getEntityTypeOrdinal(row),
+                        table.getPlayerId(row), table.isActive(row));
+            }
+        }
+    }
+
+    private void repoint(int id, Entity entity) {
+        appliedEntity[id] = entity;
+        final int x = appliedX[id];
+        final int y = appliedY[id];
+        final int size = properties.get(ENTITY_TYPES[appliedType[id]]).getSize();
+        for (int cx = x; cx < x + size; cx++) {
+            for (int cy = y; cy < y + size; cy++) {
+                entitiesByPos[CompressedCoords.compress(cx, cy)] = entity;
+            }
+        }
+    }
+
+    private void add(int id, Entity entity, int x, int y, int typeOrdinal, int playerId, boolean active) {
+        appliedEntity[id] = entity;
+        appliedX[id] = x;
+        appliedY[id] = y;
+        appliedType[id] = typeOrdinal;
+        appliedPlayer[id] = playerId;
+        appliedActive[id] = active;
+        final EntityType type = ENTITY_TYPES[typeOrdinal];
+        final int size = properties.get(type).getSize();
+        final MapHelper.CAN_GO_THROUGH cellType = computeCanGoThrough(playerId, type);
+        for (int cx = x; cx < x + size; cx++) {
+            for (int cy = y; cy < y + size; cy++) {
+                entitiesByPos[CompressedCoords.compress(cx, cy)] = entity;
+                setCanGoThrough(cx, cy, cellType);
+                markDirtyWithNeighbours(cx, cy);
+            }
+        }
+        changeContribution(x, y, type, playerId, active, +1);
+    }
+
+    private void remove(int id) {
+        final EntityType type = ENTITY_TYPES[appliedType[id]];
+        final int x = appliedX[id];
+        final int y = appliedY[id];
+        final int size = properties.get(type).getSize();
+        changeContribution(x, y, type, appliedPlayer[id], appliedActive[id], -1);
+        for (int cx = x; cx < x + size; cx++) {
+            for (int cy = y; cy < y + size; cy++) {
+                entitiesByPos[CompressedCoords.compress(cx, cy)] = null;
+                refreshEmptyCell(cx, cy);
+                markDirtyWithNeighbours(cx, cy);
+            }
+        }
+        appliedEntity[id] = null;
+    }
+
+    private void changeContribution(int x, int y, EntityType type, int playerId, boolean active, int delta) {
+        final EntityProperties entityProperties = properties.get(type);
+        final int size = entityProperties.getSize();
+        if (playerId == myPlayerId) {
+            changeAround(SEEN, seenBy, x, y, size, entityProperties.getSightRange(), delta);
+            if (type == EntityType.BUILDER_UNIT) {
+                changeAround(BALANCE, protectionBalance, x, y, size, ProtectionBalance.BUILDER_RANGE, delta * ProtectionBalance.BUILDER_BALANCE);
+            } else if (type == EntityType.RANGED_UNIT) {
+                changeAround(BALANCE, protectionBalance, x, y, size, ProtectionBalance.RANGED_RANGE, delta * ProtectionBalance.RANGED_BALANCE);
+            }
+            return;
+        }
+        if (playerId == EntityTable.NO_PLAYER) {
+            return;
+        }
+        final boolean activeTurret = type == EntityType.TURRET && active;
+        if (!activeTurret) {
+            enemies.add(x, y, delta);
+        }
+        final boolean warUnit = !type.isBuilding() && type != EntityType.BUILDER_UNIT;
+        if (warUnit || type == EntityType.TURRET) {
+            int damageRange = entityProperties.getAttack().getAttackRange();
+            if (!type.isBuilding()) {
+                // it can come one cell closer before attacking
+                damageRange++;
+            }
+            if (activeTurret) {
+                changeAround(ATTACKED_BY_TURRETS, attackedByTurrets, x, y, size, damageRange, delta);
+            } else {
+                changeAround(ATTACKED, attackedBy, x, y, size, damageRange, delta);
+            }
+        }
+        if (type == EntityType.RANGED_UNIT) {
+            changeAround(ENEMY_RANGED_UNITS, enemyRangedUnitsNearby, x, y, 1, MapHelper.RANGED_UNIT_RANGE_FOR_BUILDERS, delta);
+        }
+    }
+
+    /**
+     * Adds {@code delta} to every cell within {@code range} of the {@code size}x{@code size} square at (x, y).
+     */
+    private void changeAround(int layer, short[] counts, int x, int y, int size, int range, int delta) {
+        final int toX = x + size - 1;
+        final int toY = y + size - 1;
+        // row by row, so that the inner loop walks over neighbouring cells of the grid
+        for (int cy = Math.max(0, y - range); cy <= Math.min(mapSize - 1, toY + range); cy++) {
+            final int rangeX = range - (cy < y ? y - cy : cy > toY ? cy - toY : 0);
+            for (int cx = Math.max(0, x - rangeX); cx <= Math.min(mapSize - 1, toX + rangeX); cx++) {
+                final int cell = CompressedCoords.compress(cx, cy);
+                final boolean wasZero = counts[cell] == 0;
+                counts[cell] += delta;
+                final boolean isZero = counts[cell] == 0;
+                switch (layer) {
+                    case SEEN:
+                        if (wasZero != isZero && entitiesByPos[cell] == null) {
+                            refreshEmptyCell(cx, cy);
+                            markDirty(cx, cy);
+                        }
+                        break;
+                    case ATTACKED:
+                    case ATTACKED_BY_TURRETS:
+                        refreshUnderAttack(cx, cy);
+                        break;
+                    case ENEMY_RANGED_UNITS:
+                        if (wasZero != isZero) {
+                            markDirty(cx, cy);
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        if (layer == BALANCE) {
+            balanceVersion++;
+        }
+    }
+
+    private MapHelper.CAN_GO_THROUGH computeCanGoThrough(final int playerId, final EntityType entityType) {
+        if (playerId == EntityTable.NO_PLAYER) {
+            return MapHelper.CAN_GO_THROUGH.FOOD;
+        }
+        if (playerId == myPlayerId) {
+            if (entityType.isBuilding()) {
+                return MapHelper.CAN_GO_THROUGH.MY_BUILDING;
+            }
+            if (entityType == EntityType.BUILDER_UNIT) {
+                return MapHelper.CAN_GO_THROUGH.MY_BUILDER;
+            }
+            return MapHelper.CAN_GO_THROUGH.EMPTY_CELL;
+        } else {
+            if (entityType.isBuilding()) {
+                return MapHelper.CAN_GO_THROUGH.ENEMY_BUILDING;
+            } else {
+                return MapHelper.CAN_GO_THROUGH.EMPTY_CELL;
+            }
+        }
+    }
+
+    private void setCanGoThrough(int x, int y, MapHelper.CAN_GO_THROUGH value) {
+        final int cell = CompressedCoords.compress(x, y);
+        final MapHelper.CAN_GO_THROUGH old = MapHelper.CAN_GO_THROUGH.VALUES[canGoThrough[cell]];
+        if (old == value) {
+            return;
+        }
+        // FreedomPath treats my builders as empty cells, everything else changes its costs
+        if (!(isEmptyForFreedomPath(old) && isEmptyForFreedomPath(value))) {
+            terrainVersion++;
+        }
+        writeCanGoThrough(cell, value.ordinal());
+    }
+
+    private void writeCanGoThrough(int cell, int value) {
+        final int x = CompressedCoords.extractX(cell);
+        final int y = CompressedCoords.extractY(cell);
+        canGoThroughBoards[canGoThrough[cell]].clear(x, y);
+        canGoThroughBoards[value].set(x, y);
+        canGoThrough[cell] = (byte) value;
+    }
+
+    private void writeUnderAttack(int cell, int value) {
+        final int x = CompressedCoords.extractX(cell);
+        final int y = CompressedCoords.extractY(cell);
+        underAttackBoards[underAttack[cell]].clear(x, y);
+        underAttackBoards[value].set(x, y);
+        underAttack[cell] = (byte) value;
+    }
+
+    private static boolean isEmptyForFreedomPath(MapHelper.CAN_GO_THROUGH value) {
+        return value == MapHelper.CAN_GO_THROUGH.EMPTY_CELL || value == MapHelper.CAN_GO_THROUGH.MY_BUILDER;
+    }
+
+    private void refreshEmptyCell(int x, int y) {
+        setCanGoThrough(x, y, seenBy[CompressedCoords.compress(x, y)] > 0 ? MapHelper.CAN_GO_THROUGH.EMPTY_CELL : MapHelper.CAN_GO_THROUGH.UNKNOWN);
+    }
+
+    private void refreshUnderAttack(int x, int y) {
+        final int cell = CompressedCoords.compress(x, y);
+        final MapHelper.UNDER_ATTACK value;
+        if (attackedByTurrets[cell] > 0 || attackedBy[cell] > 1) {
+            // if cell is under attack by more than one unit -> do not go there.
+            value = MapHelper.UNDER_ATTACK.UNDER_ATTACK_DO_NOT_GO_THERE;
+        } else if (attackedBy[cell] == 1) {
+            value = MapHelper.UNDER_ATTACK.UNDER_ATTACK;
+        } else {
+            value = MapHelper.UNDER_ATTACK.SAFE;
+        }
+        writeUnderAttack(cell, value.ordinal());
+    }
+
+    private void markDirty(int x, int y) {
+        final int cell = CompressedCoords.compress(x, y);
+        if (dirtyStamp[cell] != dirtyVersion) {
+            dirtyStamp[cell] = dirtyVersion;
+            dirtyCells.add(cell);
+        }
+    }
+
+    private void markDirtyWithNeighbours(int x, int y) {
+        markDirty(x, y);
+        final int[] dx = Directions.dx;
+        final int[] dy = Directions.dy;
+        for (int it = 0; it < dx.length; it++) {
+            final int nx = x + dx[it];
+            final int ny = y + dy[it];
+            if (nx >= 0 && nx < mapSize && ny >= 0 && ny < mapSize) {
+                markDirty(nx, ny);
+            }
+        }
+    }
+
+    private boolean isResource(int x, int y) {
+        if (x < 0 || x >= mapSize || y < 0 || y >= mapSize) {
+            return false;
+        }
+        final Entity entity = entitiesByPos[CompressedCoords.compress(x, y)];
+        return entity != null && entity.getEntityType() == EntityType.RESOURCE;
+    }
+
+    private void refreshSafeToMine(int x, int y) {
+        final int cell = CompressedCoords.compress(x, y);
+        boolean safe = entitiesByPos[cell] == null && enemyRangedUnitsNearby[cell] == 0
+                && canGoThrough[cell] != MapHelper.CAN_GO_THROUGH.UNKNOWN.ordinal();
+        if (safe) {
+            safe = false;
+            final int[] dx = Directions.dx;
+            final int[] dy = Directions.dy;
+            for (int it = 0; it < dx.length; it++) {
+                if (isResource(x + dx[it], y + dy[it])) {
+                    safe = true;
+                    break;
+                }
+            }
+        }
+        if (safeToMine[cell] != safe) {
+            safeToMine[cell] = safe;
+            safeToMineVersion++;
+        }
+    }
+
+    // ----- changes during a tick -----
+
+    void setCanGoThroughForTick(int x, int y, MapHelper.CAN_GO_THROUGH value) {
+        journal.add(JOURNAL_CAN_GO_THROUGH);
+        final int cell = CompressedCoords.compress(x, y);
+        journal.add(cell);
+        journal.add(canGoThrough[cell]);
+        writeCanGoThrough(cell, value.ordinal());
+    }
+
+    void setUnderAttackForTick(int x, int y, MapHelper.UNDER_ATTACK value) {
+        journal.add(JOURNAL_UNDER_ATTACK);
+        final int cell = CompressedCoords.compress(x, y);
+        journal.add(cell);
+        journal.add(underAttack[cell]);
+        writeUnderAttack(cell, value.ordinal());
+    }
+
+    private void rollbackJournal() {
+        for (int i = journal.size() - 3; i >= 0; i -= 3) {
+            final int cell = journal.get(i + 1);
+            if (journal.get(i) == JOURNAL_CAN_GO_THROUGH) {
+                writeCanGoThrough(cell, journal.get(i + 2));
+            } else {
+                writeUnderAttack(cell, journal.get(i + 2));
+            }
+        }
+        journal.clear();
+    }
+
+    // ----- derived layers -----
+
+    boolean isSafePositionToMine(int x, int y) {
+        return safeToMine[CompressedCoords.compress(x, y)];
+    }
+
+    List<Position> getSafePositionsToMine() {
+        if (safePositionsVersion != safeToMineVersion) {
+            List<Position> positions = new ArrayList<>();
+            for (int x = 0; x < mapSize; x++) {
+                for (int y = 0; y < mapSize; y++) {
+                    if (safeToMine[CompressedCoords.compress(x, y)]) {
+                        positions.add(new Position(x, y));
+                    }
+                }
+            }
+            safePositions = Collections.unmodifiableList(positions);
+            safePositionsVersion = safeToMineVersion;
+        }
+        return safePositions;
+    }
+
+    List<ProtectionBalance.TopBalance> getTopBalances() {
+        if (topBalancesVersion != balanceVersion) {
+            topBalances = Collections.unmodifiableList(ProtectionBalance.computeTopBalance(protectionBalance, mapSize));
+            topBalancesVersion = balanceVersion;
+        }
+        return topBalances;
+    }
+
+    /**
+     * @return path computed by {@link FreedomPath} for the same builder base position and the same terrain, or null
+     */
+    List<Position> getCachedFreedomPath(Position builderBase) {
+        if (freedomPathVersion != terrainVersion || freedomPathBaseX != builderBase.getX() || freedomPathBaseY != builderBase.getY()) {
+            return null;
+        }
+        return freedomPath;
+    }
+
+    void cacheFreedomPath(Position builderBase, List<Position> path) {
+        freedomPathVersion = terrainVersion;
+        freedomPathBaseX = builderBase.getX();
+        freedomPathBaseY = builderBase.getY();
+        freedomPath = Collections.unmodifiableList(path);
+    }
+}
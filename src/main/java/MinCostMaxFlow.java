@@ -5,6 +5,7 @@ import java.util.PriorityQueue;
 class MinCostMaxFlow {
     int n;
     ArrayList<Edge>[] g;
+    int edgesCount;
 
     class Edge {
         int from, to;
@@ -70,10 +71,14 @@ class MinCostMaxFlow {
         e2.rev = e1;
         g[fr].add(e1);
         g[to].add(e2);
+        edgesCount++;
         return e1;
     }
 
     public long[] getMinCostMaxFlow(int source, int target) {
+        StrategyEvents.MinCostMaxFlowRun event = new StrategyEvents.MinCostMaxFlowRun();
+        event.begin();
+        int augmentingPaths = 0;
         long[] h = new long[n];
         for (boolean changed = true; changed; ) {
             changed = false;
@@ -103,6 +108,7 @@ class MinCostMaxFlow {
                 addFlow = Math.min(addFlow, v.e.cap - v.e.flow);
                 v = vertices[v.e.from];
             }
+            augmentingPaths++;
             cost += (d[target] + h[target] - h[source]) * addFlow;
             flow += addFlow;
             v = vertices[target];
@@ -115,6 +121,14 @@ class MinCostMaxFlow {
                 h[i] += d[i] == Long.MAX_VALUE ? 0 : d[i];
             }
         }
+        if (event.shouldCommit()) {
+            event.vertices = n;
+            event.edges = edgesCount;
+            event.augmentingPaths = augmentingPaths;
+            event.flow = flow;
+            event.cost = cost;
+            event.commit();
+        }
         return new long[]{flow, cost};
     }
 
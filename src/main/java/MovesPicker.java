@@ -128,7 +128,7 @@ public class MovesPicker {
             if (!state.insideMap(nextPos)) {
                 continue;
             }
-            Entity there = state.map.entitiesByPos[nextPos.getX()][nextPos.getY()];
+            Entity there = state.map.getEntity(nextPos.getX(), nextPos.getY());
             if (there != null) {
                 if (there.getPlayerId() == null) {
                     continue;
@@ -143,7 +143,7 @@ public class MovesPicker {
                     continue;
                 }
             }
-            if (state.map.underAttack[nextPos.getX()][nextPos.getY()] == MapHelper.UNDER_ATTACK.UNDER_ATTACK_DO_NOT_GO_THERE) {
+            if (state.map.getUnderAttack(nextPos.getX(), nextPos.getY()) == MapHelper.UNDER_ATTACK.UNDER_ATTACK_DO_NOT_GO_THERE) {
                 continue;
             }
             moves.add(new Move(unit, nextPos, EntityAction.createMoveAction(nextPos, false, false), PRIORITY_NOTHING));
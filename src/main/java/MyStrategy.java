@@ -6,6 +6,8 @@ import java.util.List;
 import static model.EntityType.*;
 
 public class MyStrategy {
+    private final MapLayers mapLayers = new MapLayers();
+
     void spawnUnit(final State state, final Entity building, final EntityType unitType) {
         if (!state.isEnoughResourcesToBuild(unitType)) {
             return;
@@ -46,23 +48,42 @@ public class MyStrategy {
         return false;
     }
 
+    /**
+     * Cheap answer which doesn't touch any strategy state: every unit just auto attacks.
+     */
+    static Action createFallbackAction(PlayerView playerView) {
+        Action action = new Action(new HashMap<>());
+        for (Entity entity : playerView.getEntities()) {
+            if (entity.getPlayerId() != null && entity.getPlayerId() == playerView.getMyId()) {
+                action.getEntityActions().put(entity.getId(), EntityAction.createAttackAction(null,
+                        new AutoAttack(50, new EntityType[]{})));
+            }
+        }
+        return action;
+    }
+
     public Action getAction(PlayerView playerView, DebugInterface debugInterface) {
+        TickProfiler.startTick(playerView.getCurrentTick());
+        TimeBudget.startTick(playerView);
         if (hackForTimeLimit(playerView)) {
-            Action action = new Action(new HashMap<>());
-            for (Entity entity : playerView.getEntities()) {
-                if (entity.getPlayerId() != null && entity.getPlayerId() == playerView.getMyId()) {
-                    action.getEntityActions().put(entity.getId(), EntityAction.createAttackAction(null,
-                            new AutoAttack(50, new EntityType[]{})));
-                }
-            }
+            Action action = createFallbackAction(playerView);
+            TimeBudget.endTick();
+            TickProfiler.endTick(playerView.getEntities().length, action.getEntityActions().size());
             return action;
         }
-        State state = new State(playerView, debugInterface);
+        TickProfiler.begin(TickProfiler.Phase.STATE);
+        State state = new State(playerView, debugInterface, mapLayers);
+        TickProfiler.end(TickProfiler.Phase.STATE);
         int myId = playerView.getMyId();
+        TickProfiler.begin(TickProfiler.Phase.RANGED_UNITS);
         RangedUnitStrategy rangedUnitStrategy = new RangedUnitStrategy(state);
         rangedUnitStrategy.makeMoveForAll();
         state.globalStrategy.setNeedMoreRangedUnits(rangedUnitStrategy.needMoreUnitsForSupport);
+        TickProfiler.end(TickProfiler.Phase.RANGED_UNITS);
+        TickProfiler.begin(TickProfiler.Phase.BUILDERS);
         BuilderStrategy.makeMoveForAll(state);
+        TickProfiler.end(TickProfiler.Phase.BUILDERS);
+        TickProfiler.begin(TickProfiler.Phase.BUILDINGS);
         for (Entity entity : playerView.getEntities()) {
             if (entity.getPlayerId() == null || entity.getPlayerId() != myId) {
                 continue;
@@ -102,8 +123,15 @@ public class MyStrategy {
                 state.movesPicker.addManualAction(entity, action, MovesPicker.PRIORITY_SMALL);
             }
         }
+        TickProfiler.end(TickProfiler.Phase.BUILDINGS);
+        TickProfiler.begin(TickProfiler.Phase.BUILD_ACTIONS);
         Action action = state.movesPicker.buildActions();
+        TickProfiler.end(TickProfiler.Phase.BUILD_ACTIONS);
+        TickProfiler.begin(TickProfiler.Phase.DEBUG);
         state.printSomeDebug(debugInterface, false, action);
+        TickProfiler.end(TickProfiler.Phase.DEBUG);
+        TimeBudget.endTick();
+        TickProfiler.endTick(playerView.getEntities().length, action.getEntityActions().size());
         return action;
     }
 
@@ -71,7 +71,7 @@ public class PositionsPicker {
         }
         Position target = getTarget(state, who, what);
 
-        MapHelper.BfsQueue bfsQueue = null;
+        QueueDist bfsQueue = null;
         if (what == EntityType.BUILDER_UNIT) {
             if (!state.decidedWhatToWithBuilders) {
                 throw new AssertionError("Wrong order of operations");
@@ -1,48 +1,19 @@
-import model.Entity;
-import model.EntityType;
-import model.Position;
-
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
 public class ProtectionBalance {
+    static final int BUILDER_RANGE = 5;
+    static final int RANGED_RANGE = 10;
+    static final int BUILDER_BALANCE = +1;
+    static final int RANGED_BALANCE = -2;
+
     final State state;
     final MapHelper mapHelper;
-    // num builders - num rangers
-    final int[][] balance;
+    // num builders - num rangers, kept up to date by MapLayers
+    final short[] balance;
     final List<TopBalance> topBalances;
 
-    private void changeBalance(int[][] balance, Entity entity, int balanceDiff, int sightRange) {
-        final Position bottomLeft = entity.getPosition();
-        final int entitySize = state.getEntityProperties(entity).getSize();
-        final Position topRight = bottomLeft.shift(entitySize - 1, entitySize - 1);
-        for (int x = bottomLeft.getX() - sightRange; x <= topRight.getX() + sightRange; x++) {
-            for (int y = bottomLeft.getY() - sightRange; y <= topRight.getY() + sightRange; y++) {
-                if (!mapHelper.insideMap(x, y)) {
-                    continue;
-                }
-                if (CellsUtils.distBetweenEntityAndPos(state, entity, x, y) <= sightRange) {
-                    balance[x][y] += balanceDiff;
-                }
-            }
-        }
-    }
-
-    private int[][] computebalance() {
-        final int mapSize = state.playerView.getMapSize();
-        int[][] balance = new int[mapSize][mapSize];
-        final int BUILDER_RANGE = 5;
-        final int RANGED_RANGE = 10;
-        for (Entity builder : state.myEntitiesByType.get(EntityType.BUILDER_UNIT)) {
-            changeBalance(balance, builder, +1, BUILDER_RANGE);
-        }
-        for (Entity rangedUnit : state.myEntitiesByType.get(EntityType.RANGED_UNIT)) {
-            changeBalance(balance, rangedUnit, -2, RANGED_RANGE);
-        }
-        return balance;
-    }
-
     static class TopBalance implements Comparable<TopBalance> {
         int x, y, balance;
 
@@ -62,14 +33,15 @@ public class ProtectionBalance {
         }
     }
 
-    final int CLOSE_ENOUGH = 20;
+    static final int CLOSE_ENOUGH = 20;
 
-    private List<TopBalance> computeTopBalance() {
-        List<TopBalance> all = new ArrayList<>(balance.length * balance.length);
-        for (int x = 0; x < balance.length; x++) {
-            for (int y = 0; y < balance[x].length; y++) {
-                if (balance[x][y] > 0) {
-                    all.add(new TopBalance(x, y, balance[x][y]));
+    static List<TopBalance> computeTopBalance(final short[] balanceByCell, final int mapSize) {
+        List<TopBalance> all = new ArrayList<>(mapSize * mapSize);
+        for (int x = 0; x < mapSize; x++) {
+            for (int y = 0; y < mapSize; y++) {
+                final int balance = balanceByCell[CompressedCoords.compress(x, y)];
+                if (balance > 0) {
+                    all.add(new TopBalance(x, y, balance));
                 }
             }
         }
@@ -94,7 +66,7 @@ public class ProtectionBalance {
     ProtectionBalance(MapHelper mapHelper) {
         this.mapHelper = mapHelper;
         this.state = mapHelper.state;
-        this.balance = computebalance();
-        this.topBalances = computeTopBalance();
+        this.balance = mapHelper.layers.protectionBalance;
+        this.topBalances = mapHelper.layers.getTopBalances();
     }
 }
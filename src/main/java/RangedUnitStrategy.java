@@ -29,7 +29,7 @@ public class RangedUnitStrategy {
     }
 
     private boolean eat(final Entity unit, final Position pos, int priority) {
-        if (state.attack(unit, state.map.entitiesByPos[pos.getX()][pos.getY()], priority)) {
+        if (state.attack(unit, state.map.getEntity(pos.getX(), pos.getY()), priority)) {
             // TODO: do we need it?
             state.map.updateCellCanGoThrough(unit.getPosition(), MapHelper.CAN_GO_THROUGH.MY_EATING_FOOD_RANGED_UNIT);
             return true;
@@ -77,6 +77,12 @@ public class RangedUnitStrategy {
                 return true;
             }
         }
+        // at full quality searches aren't limited, so the urgency isn't needed
+        final boolean critical = TimeBudget.getQuality() < 1.0 && UnitScheduler.isCritical(state, unit);
+        if (!TimeBudget.tryUseDijkstra(critical)) {
+            state.autoMove(unit, goToPos);
+            return true;
+        }
         final int attackRange = state.getEntityProperties(unit).getAttack().getAttackRange();
         List<Position> firstCellsInPath = state.map.findBestPathToTargetDijkstra(unit.getPosition(),
                 goToPos,
@@ -91,7 +97,7 @@ public class RangedUnitStrategy {
         }
         final Position curPos = unit.getPosition();
         state.addDebugTarget(curPos, goToPos);
-        if (state.map.underAttack[curPos.getX()][curPos.getY()] == MapHelper.UNDER_ATTACK.UNDER_ATTACK_DO_NOT_GO_THERE) {
+        if (state.map.getUnderAttack(curPos.getX(), curPos.getY()) == MapHelper.UNDER_ATTACK.UNDER_ATTACK_DO_NOT_GO_THERE) {
             boolean existGoodMove = false;
             for (Position firstCellInPath : firstCellsInPath) {
                 if (state.isOccupiedByResource(firstCellInPath)) {
@@ -132,10 +138,10 @@ public class RangedUnitStrategy {
             if (!state.map.insideMap(nx, ny)) {
                 continue;
             }
-            if (state.map.underAttack[nx][ny] == MapHelper.UNDER_ATTACK.UNDER_ATTACK_DO_NOT_GO_THERE) {
+            if (state.map.getUnderAttack(nx, ny) == MapHelper.UNDER_ATTACK.UNDER_ATTACK_DO_NOT_GO_THERE) {
                 continue;
             }
-            if (MapHelper.canGoThereOnCurrentTurn(state.map.canGoThrough[nx][ny], false, true)) {
+            if (MapHelper.canGoThereOnCurrentTurn(state.map.getCanGoThrough(nx, ny), false, true)) {
                 state.move(unit, new Position(nx, ny), priority + 1);
                 existGoodMove = true;
             }
@@ -165,7 +171,7 @@ public class RangedUnitStrategy {
                 List<MoveAction> moveActions = state.getUnitMoveActions(unit);
                 for (MoveAction moveAction : moveActions) {
                     final Position movePos = moveAction.getTarget();
-                    final Entity who = state.map.entitiesByPos[movePos.getX()][movePos.getY()];
+                    final Entity who = state.map.getEntity(movePos.getX(), movePos.getY());
 
                     if (who == null || who.getPlayerId() == null) {
                         continue;
@@ -276,7 +282,20 @@ public class RangedUnitStrategy {
         ProtectionsResult protectionsResult = handleProtections(notAttackingOnCurrentTurn);
         notAttackingOnCurrentTurn = filterProtections(notAttackingOnCurrentTurn, protectionsResult.usedUnits);
         needMoreUnitsForSupport = protectionsResult.needMoreSupport;
-        for (Entity unit : notAttackingOnCurrentTurn) {
+        final List<Entity> planningOrder = UnitScheduler.orderByUrgency(state, notAttackingOnCurrentTurn);
+        // missions draw from State.rnd. When the planning order is changed, they are updated in the original order
+        // before and after planning, so urgency only decides who is planned first
+        final boolean reordered = planningOrder != notAttackingOnCurrentTurn;
+        final Set<Entity> failedMissions = Collections.newSetFromMap(new IdentityHashMap<>());
+        if (reordered) {
+            for (Entity unit : notAttackingOnCurrentTurn) {
+                SpecialAgents.Profile specialAgentProfile = SpecialAgents.getSpecialAgentProfile(state, unit);
+                if (specialAgentProfile != null && specialAgentProfile.shouldUpdateMission(unit)) {
+                    specialAgentProfile.updateMission(state);
+                }
+            }
+        }
+        for (Entity unit : planningOrder) {
             SpecialAgents.Profile specialAgentProfile = SpecialAgents.getSpecialAgentProfile(state, unit);
             Entity closestEnemy = state.map.findClosestEnemy(unit.getPosition());
             if (specialAgentProfile != null) {
@@ -298,13 +317,17 @@ public class RangedUnitStrategy {
                 if (specialAgentProfile.defender) {
                     goToPosition(unit, specialAgentProfile.currentTarget, Integer.MAX_VALUE - 1, false, false, true, MovesPicker.PRIORITY_SMALL);
                 } else {
-                    if (specialAgentProfile.shouldUpdateMission(unit)) {
+                    if (!reordered && specialAgentProfile.shouldUpdateMission(unit)) {
                         specialAgentProfile.updateMission(state);
                     }
                     int maxDist = Integer.MAX_VALUE;
                     if (!goToPosition(unit, specialAgentProfile.currentTarget, maxDist, false, false)) {
                         maybeSpecialAgentCouldAttackSomething(unit);
-                        specialAgentProfile.updateMission(state);
+                        if (reordered) {
+                            failedMissions.add(unit);
+                        } else {
+                            specialAgentProfile.updateMission(state);
+                        }
                     }
                 }
             } else {
@@ -324,6 +347,11 @@ public class RangedUnitStrategy {
                 }
             }
         }
+        for (Entity unit : notAttackingOnCurrentTurn) {
+            if (failedMissions.contains(unit)) {
+                SpecialAgents.getSpecialAgentProfile(state, unit).updateMission(state);
+            }
+        }
         resolveEatingFoodPaths(allRangedUnits);
     }
 
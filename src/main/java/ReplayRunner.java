@@ -0,0 +1,113 @@
+import model.*;
+import util.ByteBufferReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Feeds a recording made with {@code -DrecordTicks} (see {@link TickRecorder}) into a fresh {@link MyStrategy}
+ * without a server. For every tick prints the time and bytes allocated by {@code getAction}, and which entities got
+ * a different action than in the recording:
+ * <pre>
+ *     java ReplayRunner game [last tick]
+ * </pre>
+ * The strategy keeps state between ticks, so the replay always starts from the first recorded tick.
+ */
+public class ReplayRunner {
+    private static final int MAX_DIFFS_TO_PRINT = 3;
+
+    private static byte[] encode(EntityAction action) throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        action.writeTo(stream);
+        return stream.toByteArray();
+    }
+
+    private static Action readRecordedAction(ByteBuffer bytes) throws IOException {
+        byte[] array = new byte[bytes.remaining()];
+        bytes.get(array);
+        ClientMessage message = ClientMessage.readFrom(new ByteArrayInputStream(array));
+        if (!(message instanceof ClientMessage.ActionMessage)) {
+            throw new IOException("Recorded client message is not an action");
+        }
+        return ((ClientMessage.ActionMessage) message).getAction();
+    }
+
+    private static int printDiff(int tick, Action recorded, Action actual) throws IOException {
+        int diffs = 0;
+        for (Map.Entry<Integer, EntityAction> entry : recorded.getEntityActions().entrySet()) {
+            EntityAction actualAction = actual.getEntityActions().get(entry.getKey());
+            if (actualAction == null || !Arrays.equals(encode(entry.getValue()), encode(actualAction))) {
+                if (diffs < MAX_DIFFS_TO_PRINT) {
+                    System.out.println("    tick " + tick + ", entity " + entry.getKey() + ": " + entry.getValue() + " -> " + actualAction);
+                }
+                diffs++;
+            }
+        }
+        for (Integer entityId : actual.getEntityActions().keySet()) {
+            if (!recorded.getEntityActions().containsKey(entityId)) {
+                if (diffs < MAX_DIFFS_TO_PRINT) {
+                    System.out.println("    tick " + tick + ", entity " + entityId + ": no action -> " + actual.getEntityActions().get(entityId));
+                }
+                diffs++;
+            }
+        }
+        return diffs;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: ReplayRunner <recording path prefix> [last tick]");
+            return;
+        }
+        if (System.getProperty(TimeBudget.CLOCK_PROPERTY) == null) {
+            // the recorded game had its own time budget, a replay should make the same decisions on any machine
+            System.setProperty(TimeBudget.CLOCK_PROPERTY, "off");
+        }
+        final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final long threadId = Thread.currentThread().getId();
+        try (TickRecorder.Recording recording = new TickRecorder.Recording(args[0])) {
+            final int tickCount = args.length < 2 ? recording.getTickCount() : Math.min(recording.getTickCount(), Integer.parseInt(args[1]) + 1);
+            final MyStrategy myStrategy = new MyStrategy();
+            final EntityPool entityPool = Runner.USE_ENTITY_POOL ? new EntityPool() : null;
+            final long[] tickNanos = new long[tickCount];
+            long totalAllocated = 0;
+            int ticksWithDiff = 0;
+            for (int tick = 0; tick < tickCount; tick++) {
+                ServerMessage message = ServerMessage.readFrom(new ByteBufferReader(recording.getServerMessage(tick)), entityPool);
+                if (!(message instanceof ServerMessage.GetAction)) {
+                    throw new IOException("Recorded server message is not GetAction");
+                }
+                final PlayerView playerView = ((ServerMessage.GetAction) message).getPlayerView();
+                final long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+                final long startTime = System.nanoTime();
+                final Action action = myStrategy.getAction(playerView, null);
+                tickNanos[tick] = System.nanoTime() - startTime;
+                final long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+                totalAllocated += allocated;
+                final int diffs = printDiff(playerView.getCurrentTick(), readRecordedAction(recording.getClientMessage(tick)), action);
+                if (diffs > 0) {
+                    ticksWithDiff++;
+                }
+                System.out.printf("tick %d: %.3f ms, %d KB allocated, %d entities, %d different actions%n",
+                        playerView.getCurrentTick(), tickNanos[tick] / 1e6, allocated >> 10, playerView.getEntities().length, diffs);
+            }
+            long[] sorted = tickNanos.clone();
+            Arrays.sort(sorted);
+            long total = 0;
+            for (long nanos : sorted) {
+                total += nanos;
+            }
+            if (tickCount > 0) {
+                System.out.printf("%d ticks: total %.1f ms, p50 %.3f ms, p99 %.3f ms, max %.3f ms, %d MB allocated, %d ticks with different actions%n",
+                        tickCount, total / 1e6, sorted[tickCount / 2] / 1e6, sorted[Math.min(tickCount - 1, tickCount * 99 / 100)] / 1e6,
+                        sorted[tickCount - 1] / 1e6, totalAllocated >> 20, ticksWithDiff);
+                TickProfiler.printSummary(System.out);
+            }
+        }
+    }
+}
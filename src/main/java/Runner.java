@@ -1,40 +1,154 @@
-import util.StreamUtil;
+import model.ActionMessageWriter;
+import model.EntityPool;
+import util.ByteBufferReader;
+import util.ByteBufferWriter;
 
 import java.io.*;
+import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.net.StandardSocketOptions;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
 
 public class Runner {
+    static final boolean USE_BYTE_BUFFER_DECODER = true;
+    // reuse Entity/Position/Player objects between ticks, only works together with USE_BYTE_BUFFER_DECODER
+    static final boolean USE_ENTITY_POOL = true;
+    static final boolean USE_ACTION_MESSAGE_WRITER = true;
+    // talk to the server through a blocking SocketChannel instead of Socket streams
+    static final boolean USE_SOCKET_CHANNEL = true;
+    // debug commands are written by a background thread, one flush per frame
+    static final boolean USE_ASYNC_DEBUG = true;
+    // without debug, the strategy runs on a worker thread and a late tick is answered with a fallback action
+    static final boolean USE_TICK_DEADLINE = true;
+    static final long TICK_DEADLINE_MILLIS = 500;
+    // -DrecordTicks=<path prefix> writes every tick to <prefix>.bin/.idx, see TickRecorder
+    static final String RECORD_TICKS_PROPERTY = "recordTicks";
+    // big enough for a full PlayerView on an 80x80 map, so a tick is usually read without growing the buffer
+    private static final int READ_BUFFER_SIZE = 1 << 18;
+    private static final int WRITE_BUFFER_SIZE = 1 << 14;
+
     private final InputStream inputStream;
     private final OutputStream outputStream;
+    private final ByteBufferReader reader;
+    private final ByteBufferWriter writer;
+    private final ActionMessageWriter actionWriter;
+    private EntityPool entityPool = USE_ENTITY_POOL ? new EntityPool() : null;
+    private TickRecorder recorder;
 
     Runner(String host, int port, String token) throws IOException {
-        Socket socket = new Socket(host, port);
-        socket.setTcpNoDelay(true);
-        inputStream = new BufferedInputStream(socket.getInputStream());
-        outputStream = new BufferedOutputStream(socket.getOutputStream());
-        StreamUtil.writeString(outputStream, token);
-        outputStream.flush();
+        if (USE_SOCKET_CHANNEL) {
+            SocketChannel channel = SocketChannel.open(new InetSocketAddress(host, port));
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            // streams are only used by debug commands and when USE_BYTE_BUFFER_DECODER is off
+            inputStream = new BufferedInputStream(Channels.newInputStream(channel));
+            outputStream = new BufferedOutputStream(Channels.newOutputStream(channel));
+            reader = new ByteBufferReader(channel, READ_BUFFER_SIZE);
+            writer = new ByteBufferWriter(channel, WRITE_BUFFER_SIZE);
+        } else {
+            Socket socket = new Socket(host, port);
+            socket.setTcpNoDelay(true);
+            inputStream = new BufferedInputStream(socket.getInputStream());
+            outputStream = new BufferedOutputStream(socket.getOutputStream());
+            reader = new ByteBufferReader(Channels.newChannel(inputStream), READ_BUFFER_SIZE);
+            writer = new ByteBufferWriter(Channels.newChannel(outputStream), WRITE_BUFFER_SIZE);
+        }
+        actionWriter = new ActionMessageWriter(writer);
+        writer.writeString(token);
+        flush();
+    }
+
+    private void flush() throws IOException {
+        // the async debug writer uses the same stream
+        synchronized (outputStream) {
+            // anything written to the stream must go out before the buffered message
+            outputStream.flush();
+            writer.flush();
+            // in stream mode the writer's channel ends in outputStream
+            outputStream.flush();
+        }
     }
 
     void run(boolean withDebug) throws IOException {
         MyStrategy myStrategy = new MyStrategy();
-        DebugInterface debugInterface = new DebugInterface(inputStream, outputStream);
+        DebugInterface debugInterface = USE_BYTE_BUFFER_DECODER ?
+                new DebugInterface(reader, outputStream) :
+                new DebugInterface(inputStream, outputStream);
         if (!withDebug) {
             debugInterface = null;
+        } else if (USE_ASYNC_DEBUG) {
+            debugInterface.startAsyncWriter();
         }
+        final String recordPath = System.getProperty(RECORD_TICKS_PROPERTY);
+        if (recordPath != null) {
+            if (!USE_BYTE_BUFFER_DECODER || !USE_ACTION_MESSAGE_WRITER) {
+                throw new AssertionError("Recording needs USE_BYTE_BUFFER_DECODER and USE_ACTION_MESSAGE_WRITER");
+            }
+            recorder = new TickRecorder(recordPath);
+        }
+        final DeadlineStrategy deadlineStrategy = USE_TICK_DEADLINE && !withDebug ?
+                new DeadlineStrategy(myStrategy, TICK_DEADLINE_MILLIS) : null;
         while (true) {
-            model.ServerMessage message = model.ServerMessage.readFrom(inputStream);
+            if (recorder != null) {
+                reader.startCapture();
+            }
+            model.ServerMessage message = USE_BYTE_BUFFER_DECODER ?
+                    model.ServerMessage.readFrom(reader, entityPool) :
+                    model.ServerMessage.readFrom(inputStream);
+            if (recorder != null) {
+                java.nio.ByteBuffer serverBytes = reader.endCapture();
+                if (message instanceof model.ServerMessage.GetAction) {
+                    recorder.recordServerMessage(serverBytes);
+                }
+            }
             if (message instanceof model.ServerMessage.GetAction) {
                 model.ServerMessage.GetAction getActionMessage = (model.ServerMessage.GetAction) message;
-                new model.ClientMessage.ActionMessage(myStrategy.getAction(getActionMessage.getPlayerView(), getActionMessage.isDebugAvailable() ? debugInterface : null)).writeTo(outputStream);
-                outputStream.flush();
+                model.Action action;
+                if (deadlineStrategy != null) {
+                    action = deadlineStrategy.getAction(getActionMessage.getPlayerView());
+                    if (entityPool != null && deadlineStrategy.isWorkerBusy()) {
+                        // the late tick still reads entities from the pool
+                        entityPool = new EntityPool();
+                    }
+                } else {
+                    action = myStrategy.getAction(getActionMessage.getPlayerView(), getActionMessage.isDebugAvailable() ? debugInterface : null);
+                }
+                // no awaitWritten() here: the action doesn't wait for this tick's debug frame, which can reach the
+                // server after it
+                if (USE_ACTION_MESSAGE_WRITER) {
+                    actionWriter.write(action);
+                    if (recorder != null) {
+                        recorder.recordClientMessage(writer.pending());
+                    }
+                } else {
+                    synchronized (outputStream) {
+                        new model.ClientMessage.ActionMessage(action).writeTo(outputStream);
+                    }
+                }
+                flush();
             } else if (message instanceof model.ServerMessage.Finish) {
+                if (debugInterface != null) {
+                    debugInterface.awaitWritten();
+                }
+                if (recorder != null) {
+                    recorder.close();
+                }
+                if (deadlineStrategy != null) {
+                    deadlineStrategy.shutdown();
+                    deadlineStrategy.printStats(System.err);
+                }
+                // stderr, or -DtickProfile=<path>
+                TickProfiler.printSummary();
                 break;
             } else if (message instanceof model.ServerMessage.DebugUpdate) {
                 model.ServerMessage.DebugUpdate debugUpdateMessage = (model.ServerMessage.DebugUpdate) message;
                 myStrategy.debugUpdate(debugUpdateMessage.getPlayerView(), debugInterface);
-                new model.ClientMessage.DebugUpdateDone().writeTo(outputStream);
-                outputStream.flush();
+                if (debugInterface != null) {
+                    // the server should see this update's drawing before it is told the update is done
+                    debugInterface.awaitWritten();
+                }
+                writer.writeInt(model.ClientMessage.DebugUpdateDone.TAG);
+                flush();
             } else {
                 throw new IOException("Unexpected server message");
             }
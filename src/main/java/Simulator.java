@@ -0,0 +1,885 @@
+import model.*;
+import util.LatencyHistogram;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URL;
+import java.util.*;
+
+/**
+ * Headless in-process implementation of the game rules, a stand-in for the official server when we only need
+ * self-play results: players get {@link PlayerView}s and answer with {@link Action}s directly, nothing is serialized.
+ * <p>
+ * Every tick is processed in the server's order: new entity actions replace remembered ones, then attacks (explicit
+ * target or auto attack), builds, repairs and finally moves. Entities act in a random order inside each stage, a
+ * unit which attacked, built or repaired doesn't move. Pathfinding is A* limited by {@code maxPathfindNodes}, units
+ * of any player are passable for it but block the actual move. Everything random comes from the game seed, so a game
+ * is reproducible as long as the players are.
+ * <p>
+ * Like the official server, every player sees the map rotated so that its own base is in the (0, 0) corner; player 1
+ * starts in (0, 0), player 2 in the opposite corner, players 3 and 4 in the other two.
+ */
+class Simulator {
+    interface SimulatedPlayer {
+        Action getAction(PlayerView playerView);
+    }
+
+    static class GameResult {
+        final long seed;
+        final int ticks;
+        // indexed by player index, the player id is index + 1
+        final int[] scores;
+        final boolean[] crashed;
+        // CPU time of every getAction call
+        final LatencyHistogram[] tickNanos;
+
+        GameResult(long seed, int ticks, int[] scores, boolean[] crashed, LatencyHistogram[] tickNanos) {
+            this.seed = seed;
+            this.ticks = ticks;
+            this.scores = scores;
+            this.crashed = crashed;
+            this.tickNanos = tickNanos;
+        }
+
+        /**
+         * @return index of the player with the best score, or -1 if several players share it
+         */
+        int getWinner() {
+            int winner = 0;
+            boolean tie = false;
+            for (int i = 1; i < scores.length; i++) {
+                if (scores[i] > scores[winner]) {
+                    winner = i;
+                    tie = false;
+                } else if (scores[i] == scores[winner]) {
+                    tie = true;
+                }
+            }
+            return tie ? -1 : winner;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("seed " + seed + ", " + ticks + " ticks:");
+            for (int i = 0; i < scores.length; i++) {
+                sb.append(" player ").append(i + 1).append(" score ").append(scores[i])
+                        .append(String.format(" (%.1f s%s)", tickNanos[i].getSum() / 1e9, crashed[i] ? ", crashed" : ""));
+            }
+            return sb.toString();
+        }
+    }
+
+    private static final int[] DX = {1, 0, -1, 0};
+    private static final int[] DY = {0, 1, 0, -1};
+    // A* cost of going through a cell with a unit, it will probably move away
+    private static final int UNIT_CELL_COST = 2;
+
+    private final GameRules rules;
+    private final Random rnd;
+    private final int mapSize;
+    private final Player[] players;
+    private final Map<Integer, Entity> entities = new LinkedHashMap<>();
+    private final Entity[][] grid;
+    // the server remembers the last action of every entity until a new one comes
+    private final Map<Integer, EntityAction> entityActions = new HashMap<>();
+    private final Set<Integer> actedThisTick = new HashSet<>();
+    private int currentTick;
+    private int nextEntityId = 1;
+
+    // pathfinding state, reused between searches
+    private final int[] pathCost;
+    private final int[] pathParent;
+    private final int[] pathSeen;
+    private final int[] bfsQueue;
+    private int pathIteration;
+
+    Simulator(GameRules rules, long seed) {
+        this.rules = rules;
+        this.rnd = new Random(seed);
+        this.mapSize = rules.mapSize;
+        this.grid = new Entity[mapSize][mapSize];
+        final int cells = mapSize * mapSize;
+        this.pathCost = new int[cells];
+        this.pathParent = new int[cells];
+        this.pathSeen = new int[cells];
+        this.bfsQueue = new int[cells];
+        this.players = new Player[rules.playersCount];
+        for (int i = 0; i < players.length; i++) {
+            players[i] = new Player(i + 1, 0, rules.initialResources);
+        }
+        createInitialEntities();
+    }
+
+    // ----- map generation -----
+
+    // corner index for mirrorX/mirrorY: bit 0 flips x, bit 1 flips y
+    private static final int[] PLAYER_CORNERS = {0, 3, 1, 2};
+
+    private int cornerOf(int playerIndex) {
+        return PLAYER_CORNERS[playerIndex];
+    }
+
+    private int mirrorX(int corner, int x, int size) {
+        return corner == 1 || corner == 3 ? mapSize - x - size : x;
+    }
+
+    private int mirrorY(int corner, int y, int size) {
+        return corner == 2 || corner == 3 ? mapSize - y - size : y;
+    }
+
+    private void addForPlayer(int playerIndex, EntityType type, int x, int y) {
+        final int corner = cornerOf(playerIndex);
+        final int size = rules.getProperties(type).getSize();
+        final int mx = mirrorX(corner, x, size);
+        final int my = mirrorY(corner, y, size);
+        if (isFree(mx, my, size)) {
+            addEntity(players[playerIndex].getId(), type, mx, my, rules.getProperties(type).getMaxHealth(), true);
+        }
+    }
+
+    private void createInitialEntities() {
+        for (int i = 0; i < players.length; i++) {
+            addForPlayer(i, EntityType.BUILDER_BASE, 5, 5);
+            addForPlayer(i, EntityType.MELEE_BASE, 20, 5);
+            addForPlayer(i, EntityType.RANGED_BASE, 5, 20);
+            for (int b = 0; b < rules.initialBuilders; b++) {
+                addForPlayer(i, EntityType.BUILDER_UNIT, 10, 5 + b);
+            }
+        }
+        // resources are generated for one quarter and mirrored to all four, so every corner gets the same
+        final int half = mapSize / 2;
+        final int maxHealth = rules.getProperties(EntityType.RESOURCE).getMaxHealth();
+        for (int cluster = 0; cluster < rules.resourceClusters; cluster++) {
+            final int cx = rnd.nextInt(half);
+            final int cy = rnd.nextInt(half);
+            if (cx + cy < 30) {
+                continue;
+            }
+            final int radius = 1 + rnd.nextInt(3);
+            for (int x = cx - radius; x <= cx + radius; x++) {
+                for (int y = cy - radius; y <= cy + radius; y++) {
+                    if (x < 0 || y < 0 || x >= half || y >= half) {
+                        continue;
+                    }
+                    if (Math.abs(x - cx) + Math.abs(y - cy) > radius || rnd.nextInt(10) >= 7) {
+                        continue;
+                    }
+                    // transposed too, so that the quarters look the same after the rotations of player views
+                    addMirroredResource(x, y, maxHealth);
+                    addMirroredResource(y, x, maxHealth);
+                }
+            }
+        }
+    }
+
+    private void addMirroredResource(int x, int y, int health) {
+        for (int corner = 0; corner < 4; corner++) {
+            if (grid[mirrorX(corner, x, 1)][mirrorY(corner, y, 1)] != null) {
+                return;
+            }
+        }
+        for (int corner = 0; corner < 4; corner++) {
+            addEntity(null, EntityType.RESOURCE, mirrorX(corner, x, 1), mirrorY(corner, y, 1), health, true);
+        }
+    }
+
+    // ----- player coordinates -----
+
+    // the view of player index i is rotated by rotateCell(i, ...), this is the inverse rotation
+    private static final int[] INVERSE_ROTATIONS = {0, 1, 3, 2};
+
+    /**
+     * 0 - none, 1 - 180 degrees, 2 - (x, y) to (y, M - x), 3 - (x, y) to (M - y, x)
+     */
+    private Position rotateCell(int rotation, int x, int y) {
+        final int m = mapSize - 1;
+        return switch (rotation) {
+            case 0 -> new Position(x, y);
+            case 1 -> new Position(m - x, m - y);
+            case 2 -> new Position(y, m - x);
+            case 3 -> new Position(m - y, x);
+            default -> throw new AssertionError("Unexpected rotation " + rotation);
+        };
+    }
+
+    private Position rotateSquare(int rotation, Position pos, int size) {
+        final Position first = rotateCell(rotation, pos.getX(), pos.getY());
+        final Position last = rotateCell(rotation, pos.getX() + size - 1, pos.getY() + size - 1);
+        return new Position(Math.min(first.getX(), last.getX()), Math.min(first.getY(), last.getY()));
+    }
+
+    private Position toView(int playerIndex, Position pos, int size) {
+        return rotateSquare(playerIndex, pos, size);
+    }
+
+    private Position fromView(int playerIndex, Position pos, int size) {
+        return rotateSquare(INVERSE_ROTATIONS[playerIndex], pos, size);
+    }
+
+    private EntityAction fromView(int playerIndex, EntityAction action) {
+        MoveAction moveAction = action.getMoveAction();
+        if (moveAction != null && moveAction.getTarget() != null) {
+            moveAction = new MoveAction(fromView(playerIndex, moveAction.getTarget(), 1),
+                    moveAction.isFindClosestPosition(), moveAction.isBreakThrough());
+        }
+        BuildAction buildAction = action.getBuildAction();
+        if (buildAction != null && buildAction.getPosition() != null && buildAction.getEntityType() != null) {
+            final int size = rules.getProperties(buildAction.getEntityType()).getSize();
+            buildAction = new BuildAction(buildAction.getEntityType(), fromView(playerIndex, buildAction.getPosition(), size));
+        }
+        return new EntityAction(moveAction, buildAction, action.getAttackAction(), action.getRepairAction());
+    }
+
+    // ----- entities and grid -----
+
+    private EntityProperties properties(Entity entity) {
+        return rules.getProperties(entity.getEntityType());
+    }
+
+    private Player playerById(Integer playerId) {
+        return playerId == null ? null : players[playerId - 1];
+    }
+
+    private boolean insideMap(int x, int y) {
+        return x >= 0 && y >= 0 && x < mapSize && y < mapSize;
+    }
+
+    private boolean isFree(int x, int y, int size) {
+        if (!insideMap(x, y) || !insideMap(x + size - 1, y + size - 1)) {
+            return false;
+        }
+        for (int dx = 0; dx < size; dx++) {
+            for (int dy = 0; dy < size; dy++) {
+                if (grid[x + dx][y + dy] != null) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void fillGrid(Entity entity, Entity value) {
+        final int size = properties(entity).getSize();
+        final Position pos = entity.getPosition();
+        for (int dx = 0; dx < size; dx++) {
+            for (int dy = 0; dy < size; dy++) {
+                grid[pos.getX() + dx][pos.getY() + dy] = value;
+            }
+        }
+    }
+
+    private Entity addEntity(Integer playerId, EntityType type, int x, int y, int health, boolean active) {
+        Entity entity = new Entity(nextEntityId++, playerId, type, new Position(x, y), health, active);
+        entities.put(entity.getId(), entity);
+        fillGrid(entity, entity);
+        return entity;
+    }
+
+    private void removeEntity(Entity entity) {
+        fillGrid(entity, null);
+        entities.remove(entity.getId());
+        entityActions.remove(entity.getId());
+    }
+
+    private boolean isAlive(Entity entity) {
+        return entities.get(entity.getId()) == entity;
+    }
+
+    private static int distBetweenSegments(int from1, int size1, int from2, int size2) {
+        return Math.max(0, Math.max(from1 - (from2 + size2 - 1), from2 - (from1 + size1 - 1)));
+    }
+
+    private int dist(Entity a, Entity b) {
+        final int sizeA = properties(a).getSize();
+        final int sizeB = properties(b).getSize();
+        return distBetweenSegments(a.getPosition().getX(), sizeA, b.getPosition().getX(), sizeB)
+                + distBetweenSegments(a.getPosition().getY(), sizeA, b.getPosition().getY(), sizeB);
+    }
+
+    private static boolean contains(EntityType[] types, EntityType type) {
+        for (EntityType option : types) {
+            if (option == type) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int countEntities(int playerId, EntityType type) {
+        int count = 0;
+        for (Entity entity : entities.values()) {
+            if (entity.getEntityType() == type && Objects.equals(entity.getPlayerId(), playerId)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private boolean hasPopulationFor(int playerId, EntityProperties unitProperties) {
+        int used = 0;
+        int provided = 0;
+        for (Entity entity : entities.values()) {
+            if (!Objects.equals(entity.getPlayerId(), playerId)) {
+                continue;
+            }
+            final EntityProperties props = properties(entity);
+            used += props.getPopulationUse();
+            if (entity.isActive()) {
+                provided += props.getPopulationProvide();
+            }
+        }
+        return used + unitProperties.getPopulationUse() <= provided;
+    }
+
+    boolean hasEntities(int playerIndex) {
+        final int playerId = players[playerIndex].getId();
+        for (Entity entity : entities.values()) {
+            if (Objects.equals(entity.getPlayerId(), playerId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    boolean isFinished() {
+        if (currentTick >= rules.maxTickCount) {
+            return true;
+        }
+        int alivePlayers = 0;
+        for (int i = 0; i < players.length; i++) {
+            if (hasEntities(i)) {
+                alivePlayers++;
+            }
+        }
+        return alivePlayers <= 1;
+    }
+
+    int getCurrentTick() {
+        return currentTick;
+    }
+
+    int getScore(int playerIndex) {
+        return players[playerIndex].getScore();
+    }
+
+    // ----- player views -----
+
+    private boolean[][] computeVisibility(int playerId) {
+        boolean[][] visible = new boolean[mapSize][mapSize];
+        for (Entity entity : entities.values()) {
+            if (!Objects.equals(entity.getPlayerId(), playerId)) {
+                continue;
+            }
+            final EntityProperties props = properties(entity);
+            final int size = props.getSize();
+            final int sight = props.getSightRange();
+            final int ex = entity.getPosition().getX();
+            final int ey = entity.getPosition().getY();
+            for (int x = Math.max(0, ex - sight); x <= Math.min(mapSize - 1, ex + size - 1 + sight); x++) {
+                final int left = sight - distBetweenSegments(x, 1, ex, size);
+                for (int y = Math.max(0, ey - left); y <= Math.min(mapSize - 1, ey + size - 1 + left); y++) {
+                    visible[x][y] = true;
+                }
+            }
+        }
+        return visible;
+    }
+
+    private boolean isVisible(Entity entity, boolean[][] visible) {
+        final int size = properties(entity).getSize();
+        final Position pos = entity.getPosition();
+        for (int dx = 0; dx < size; dx++) {
+            for (int dy = 0; dy < size; dy++) {
+                if (visible[pos.getX() + dx][pos.getY() + dy]) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Every call returns fresh objects, players may keep or change them.
+     */
+    PlayerView createPlayerView(int playerIndex) {
+        final int playerId = players[playerIndex].getId();
+        final boolean[][] visible = rules.fogOfWar ? computeVisibility(playerId) : null;
+        List<Entity> visibleEntities = new ArrayList<>();
+        for (Entity entity : entities.values()) {
+            if (visible == null || isVisible(entity, visible)) {
+                visibleEntities.add(new Entity(entity.getId(), entity.getPlayerId(), entity.getEntityType(),
+                        toView(playerIndex, entity.getPosition(), properties(entity).getSize()), entity.getHealth(), entity.isActive()));
+            }
+        }
+        Player[] playersCopy = new Player[players.length];
+        for (int i = 0; i < players.length; i++) {
+            playersCopy[i] = new Player(players[i].getId(), players[i].getScore(), players[i].getResource());
+        }
+        return new PlayerView(playerId, mapSize, rules.fogOfWar, rules.entityProperties, rules.maxTickCount,
+                rules.maxPathfindNodes, currentTick, playersCopy, visibleEntities.toArray(new Entity[0]));
+    }
+
+    // ----- tick -----
+
+    /**
+     * @param actions indexed by player index, null if the player didn't answer
+     */
+    void tick(Action[] actions) {
+        for (int i = 0; i < players.length; i++) {
+            if (actions[i] == null) {
+                continue;
+            }
+            final int playerId = players[i].getId();
+            for (Map.Entry<Integer, EntityAction> entry : actions[i].getEntityActions().entrySet()) {
+                final Entity entity = entities.get(entry.getKey());
+                if (entity != null && Objects.equals(entity.getPlayerId(), playerId) && entry.getValue() != null) {
+                    entityActions.put(entity.getId(), fromView(i, entry.getValue()));
+                }
+            }
+        }
+        List<Entity> order = new ArrayList<>(entities.values());
+        Collections.shuffle(order, rnd);
+        actedThisTick.clear();
+        for (Entity entity : order) {
+            if (isAlive(entity)) {
+                processAttack(entity);
+            }
+        }
+        for (Entity entity : order) {
+            if (isAlive(entity)) {
+                processBuild(entity);
+            }
+        }
+        for (Entity entity : order) {
+            if (isAlive(entity)) {
+                processRepair(entity);
+            }
+        }
+        processMoves(order);
+        currentTick++;
+    }
+
+    private boolean isValidAutoAttackTarget(Entity attacker, Entity target, EntityType[] validTargets) {
+        if (target == attacker || Objects.equals(target.getPlayerId(), attacker.getPlayerId())) {
+            return false;
+        }
+        if (validTargets == null || validTargets.length == 0) {
+            return target.getPlayerId() != null;
+        }
+        return contains(validTargets, target.getEntityType());
+    }
+
+    private Entity findTargetInRange(Entity attacker, int range, EntityType[] validTargets) {
+        final int size = properties(attacker).getSize();
+        final int ex = attacker.getPosition().getX();
+        final int ey = attacker.getPosition().getY();
+        Entity best = null;
+        int bestDist = Integer.MAX_VALUE;
+        for (int x = Math.max(0, ex - range); x <= Math.min(mapSize - 1, ex + size - 1 + range); x++) {
+            final int left = range - distBetweenSegments(x, 1, ex, size);
+            for (int y = Math.max(0, ey - left); y <= Math.min(mapSize - 1, ey + size - 1 + left); y++) {
+                final Entity candidate = grid[x][y];
+                if (candidate == null || !isValidAutoAttackTarget(attacker, candidate, validTargets)) {
+                    continue;
+                }
+                final int candidateDist = dist(attacker, candidate);
+                if (candidateDist < bestDist || (candidateDist == bestDist && candidate.getId() < best.getId())) {
+                    best = candidate;
+                    bestDist = candidateDist;
+                }
+            }
+        }
+        return best;
+    }
+
+    private void damage(Entity attacker, Entity target) {
+        final AttackProperties attack = properties(attacker).getAttack();
+        final int damage = Math.min(attack.getDamage(), target.getHealth());
+        target.setHealth(target.getHealth() - damage);
+        final Player owner = playerById(attacker.getPlayerId());
+        if (target.getEntityType() == EntityType.RESOURCE && attack.isCollectResource() && owner != null) {
+            final int collected = damage * properties(target).getResourcePerHealth();
+            owner.setResource(owner.getResource() + collected);
+            owner.setScore(owner.getScore() + collected);
+        }
+        if (target.getHealth() <= 0) {
+            if (target.getPlayerId() != null && owner != null) {
+                owner.setScore(owner.getScore() + properties(target).getDestroyScore());
+            }
+            removeEntity(target);
+        }
+    }
+
+    private void processAttack(Entity entity) {
+        final EntityAction action = entityActions.get(entity.getId());
+        final AttackProperties attack = properties(entity).getAttack();
+        if (action == null || action.getAttackAction() == null || attack == null) {
+            return;
+        }
+        final AttackAction attackAction = action.getAttackAction();
+        Entity target = null;
+        if (attackAction.getTarget() != null) {
+            final Entity explicitTarget = entities.get(attackAction.getTarget());
+            if (explicitTarget != null && !Objects.equals(explicitTarget.getPlayerId(), entity.getPlayerId())
+                    && dist(entity, explicitTarget) <= attack.getAttackRange()) {
+                target = explicitTarget;
+            }
+        }
+        if (target == null && attackAction.getAutoAttack() != null) {
+            target = findTargetInRange(entity, attack.getAttackRange(), attackAction.getAutoAttack().getValidTargets());
+        }
+        if (target != null) {
+            damage(entity, target);
+            actedThisTick.add(entity.getId());
+        }
+    }
+
+    private void processBuild(Entity entity) {
+        final EntityAction action = entityActions.get(entity.getId());
+        final BuildProperties build = properties(entity).getBuild();
+        if (action == null || action.getBuildAction() == null || build == null || !entity.isActive()
+                || actedThisTick.contains(entity.getId())) {
+            return;
+        }
+        final BuildAction buildAction = action.getBuildAction();
+        final EntityType type = buildAction.getEntityType();
+        if (type == null || buildAction.getPosition() == null || !contains(build.getOptions(), type)) {
+            return;
+        }
+        final EntityProperties newProperties = rules.getProperties(type);
+        final int x = buildAction.getPosition().getX();
+        final int y = buildAction.getPosition().getY();
+        final int size = newProperties.getSize();
+        if (!isFree(x, y, size)) {
+            return;
+        }
+        final Position entityPos = entity.getPosition();
+        final int entitySize = properties(entity).getSize();
+        if (distBetweenSegments(x, size, entityPos.getX(), entitySize) + distBetweenSegments(y, size, entityPos.getY(), entitySize) != 1) {
+            return;
+        }
+        final Player player = playerById(entity.getPlayerId());
+        final int cost = newProperties.getInitialCost() + (newProperties.isCanMove() ? countEntities(player.getId(), type) : 0);
+        if (player.getResource() < cost) {
+            return;
+        }
+        if (newProperties.getPopulationUse() > 0 && !hasPopulationFor(player.getId(), newProperties)) {
+            return;
+        }
+        player.setResource(player.getResource() - cost);
+        if (build.getInitHealth() != null) {
+            addEntity(player.getId(), type, x, y, build.getInitHealth(), false);
+        } else {
+            addEntity(player.getId(), type, x, y, newProperties.getMaxHealth(), true);
+        }
+        actedThisTick.add(entity.getId());
+    }
+
+    private void processRepair(Entity entity) {
+        final EntityAction action = entityActions.get(entity.getId());
+        final RepairProperties repair = properties(entity).getRepair();
+        if (action == null || action.getRepairAction() == null || repair == null || actedThisTick.contains(entity.getId())) {
+            return;
+        }
+        final Entity target = entities.get(action.getRepairAction().getTarget());
+        if (target == null || !Objects.equals(target.getPlayerId(), entity.getPlayerId())
+                || !contains(repair.getValidTargets(), target.getEntityType()) || dist(entity, target) != 1) {
+            return;
+        }
+        final int maxHealth = properties(target).getMaxHealth();
+        if (target.getHealth() >= maxHealth) {
+            return;
+        }
+        target.setHealth(Math.min(maxHealth, target.getHealth() + repair.getPower()));
+        if (target.getHealth() == maxHealth) {
+            target.setActive(true);
+        }
+        actedThisTick.add(entity.getId());
+    }
+
+    // ----- movement -----
+
+    private static class PlannedMove {
+        final Entity unit;
+        final int nextX;
+        final int nextY;
+
+        PlannedMove(Entity unit, int nextX, int nextY) {
+            this.unit = unit;
+            this.nextX = nextX;
+            this.nextY = nextY;
+        }
+    }
+
+    private void processMoves(List<Entity> order) {
+        List<PlannedMove> pending = new ArrayList<>();
+        for (Entity entity : order) {
+            if (!isAlive(entity) || !properties(entity).isCanMove() || actedThisTick.contains(entity.getId())) {
+                continue;
+            }
+            final PlannedMove move = planMove(entity);
+            if (move != null) {
+                pending.add(move);
+            }
+        }
+        // a unit may step into a cell which another unit leaves on the same tick, so repeat while somebody moves
+        boolean progress = true;
+        while (progress && !pending.isEmpty()) {
+            progress = false;
+            List<PlannedMove> stillPending = new ArrayList<>();
+            for (PlannedMove move : pending) {
+                if (!isAlive(move.unit)) {
+                    continue;
+                }
+                final Entity blocker = grid[move.nextX][move.nextY];
+                if (blocker == null) {
+                    fillGrid(move.unit, null);
+                    move.unit.getPosition().setX(move.nextX);
+                    move.unit.getPosition().setY(move.nextY);
+                    fillGrid(move.unit, move.unit);
+                    progress = true;
+                } else if (properties(blocker).isCanMove()) {
+                    stillPending.add(move);
+                } else if (isBreakThrough(move.unit) && !Objects.equals(blocker.getPlayerId(), move.unit.getPlayerId())
+                        && properties(move.unit).getAttack() != null) {
+                    damage(move.unit, blocker);
+                }
+            }
+            pending = stillPending;
+        }
+    }
+
+    private boolean isBreakThrough(Entity unit) {
+        final EntityAction action = entityActions.get(unit.getId());
+        return action != null && action.getMoveAction() != null && action.getMoveAction().isBreakThrough();
+    }
+
+    private PlannedMove planMove(Entity unit) {
+        final EntityAction action = entityActions.get(unit.getId());
+        if (action == null) {
+            return null;
+        }
+        if (action.getMoveAction() != null && action.getMoveAction().getTarget() != null) {
+            final MoveAction moveAction = action.getMoveAction();
+            return findFirstStep(unit, moveAction.getTarget(), moveAction.isFindClosestPosition(), moveAction.isBreakThrough());
+        }
+        final AttackAction attackAction = action.getAttackAction();
+        if (attackAction == null || properties(unit).getAttack() == null) {
+            return null;
+        }
+        if (attackAction.getTarget() != null) {
+            final Entity target = entities.get(attackAction.getTarget());
+            if (target != null) {
+                return findFirstStep(unit, target.getPosition(), true, false);
+            }
+        }
+        if (attackAction.getAutoAttack() != null && attackAction.getAutoAttack().getPathfindRange() > 0) {
+            return findFirstStepToAutoAttackTarget(unit, attackAction.getAutoAttack());
+        }
+        return null;
+    }
+
+    private int compress(int x, int y) {
+        return x * mapSize + y;
+    }
+
+    /**
+     * -1 if the cell can't be entered on the way to the target
+     */
+    private int cellCost(Entity unit, int x, int y, boolean breakThrough) {
+        final Entity there = grid[x][y];
+        if (there == null) {
+            return 1;
+        }
+        if (properties(there).isCanMove()) {
+            return UNIT_CELL_COST;
+        }
+        if (breakThrough && !Objects.equals(there.getPlayerId(), unit.getPlayerId()) && properties(unit).getAttack() != null) {
+            return 1 + (there.getHealth() + properties(unit).getAttack().getDamage() - 1) / properties(unit).getAttack().getDamage();
+        }
+        return -1;
+    }
+
+    private PlannedMove firstStepFromParents(Entity unit, int cell) {
+        final int start = compress(unit.getPosition().getX(), unit.getPosition().getY());
+        if (cell == start) {
+            return null;
+        }
+        while (pathParent[cell] != start) {
+            cell = pathParent[cell];
+        }
+        return new PlannedMove(unit, cell / mapSize, cell % mapSize);
+    }
+
+    private PlannedMove findFirstStep(Entity unit, Position target, boolean findClosestPosition, boolean breakThrough) {
+        final int targetX = Math.max(0, Math.min(mapSize - 1, target.getX()));
+        final int targetY = Math.max(0, Math.min(mapSize - 1, target.getY()));
+        final int startX = unit.getPosition().getX();
+        final int startY = unit.getPosition().getY();
+        if (startX == targetX && startY == targetY) {
+            return null;
+        }
+        pathIteration++;
+        final int start = compress(startX, startY);
+        PriorityQueue<long[]> queue = new PriorityQueue<>(Comparator.comparingLong(a -> a[0]));
+        pathSeen[start] = pathIteration;
+        pathCost[start] = 0;
+        queue.add(new long[]{Math.abs(targetX - startX) + Math.abs(targetY - startY), start});
+        int closestCell = start;
+        int closestDist = Math.abs(targetX - startX) + Math.abs(targetY - startY);
+        int expanded = 0;
+        while (!queue.isEmpty() && expanded < rules.maxPathfindNodes) {
+            final long[] top = queue.poll();
+            final int cell = (int) top[1];
+            final int x = cell / mapSize;
+            final int y = cell % mapSize;
+            if (top[0] != pathCost[cell] + Math.abs(targetX - x) + Math.abs(targetY - y)) {
+                continue;
+            }
+            expanded++;
+            final int distToTarget = Math.abs(targetX - x) + Math.abs(targetY - y);
+            if (distToTarget < closestDist) {
+                closestDist = distToTarget;
+                closestCell = cell;
+            }
+            if (distToTarget == 0) {
+                break;
+            }
+            for (int dir = 0; dir < DX.length; dir++) {
+                final int nx = x + DX[dir];
+                final int ny = y + DY[dir];
+                if (!insideMap(nx, ny)) {
+                    continue;
+                }
+                final boolean isTarget = nx == targetX && ny == targetY;
+                final int cost = isTarget ? 1 : cellCost(unit, nx, ny, breakThrough);
+                if (cost < 0) {
+                    continue;
+                }
+                final int next = compress(nx, ny);
+                final int nextCost = pathCost[cell] + cost;
+                if (pathSeen[next] == pathIteration && pathCost[next] <= nextCost) {
+                    continue;
+                }
+                pathSeen[next] = pathIteration;
+                pathCost[next] = nextCost;
+                pathParent[next] = cell;
+                queue.add(new long[]{nextCost + Math.abs(targetX - nx) + Math.abs(targetY - ny), next});
+            }
+        }
+        if (closestDist != 0 && !findClosestPosition) {
+            return null;
+        }
+        return firstStepFromParents(unit, closestCell);
+    }
+
+    private PlannedMove findFirstStepToAutoAttackTarget(Entity unit, AutoAttack autoAttack) {
+        pathIteration++;
+        final int start = compress(unit.getPosition().getX(), unit.getPosition().getY());
+        int head = 0;
+        int tail = 0;
+        bfsQueue[tail++] = start;
+        pathSeen[start] = pathIteration;
+        pathCost[start] = 0;
+        while (head < tail) {
+            final int cell = bfsQueue[head++];
+            if (pathCost[cell] >= autoAttack.getPathfindRange()) {
+                continue;
+            }
+            final int x = cell / mapSize;
+            final int y = cell % mapSize;
+            for (int dir = 0; dir < DX.length; dir++) {
+                final int nx = x + DX[dir];
+                final int ny = y + DY[dir];
+                if (!insideMap(nx, ny)) {
+                    continue;
+                }
+                final int next = compress(nx, ny);
+                if (pathSeen[next] == pathIteration) {
+                    continue;
+                }
+                final Entity there = grid[nx][ny];
+                if (there != null && isValidAutoAttackTarget(unit, there, autoAttack.getValidTargets())) {
+                    // go to the cell next to the target, the attack happens on one of the next ticks
+                    return firstStepFromParents(unit, cell);
+                }
+                if (there != null && !properties(there).isCanMove()) {
+                    continue;
+                }
+                pathSeen[next] = pathIteration;
+                pathCost[next] = pathCost[cell] + 1;
+                pathParent[next] = cell;
+                bfsQueue[tail++] = next;
+            }
+        }
+        return null;
+    }
+
+    // ----- whole games -----
+
+    static GameResult play(GameRules rules, long seed, SimulatedPlayer[] simulatedPlayers) {
+        if (simulatedPlayers.length != rules.playersCount) {
+            throw new AssertionError("Expected " + rules.playersCount + " players, got " + simulatedPlayers.length);
+        }
+        Simulator simulator = new Simulator(rules, seed);
+        final int n = simulatedPlayers.length;
+        final boolean[] crashed = new boolean[n];
+        final LatencyHistogram[] tickNanos = new LatencyHistogram[n];
+        for (int i = 0; i < n; i++) {
+            tickNanos[i] = new LatencyHistogram();
+        }
+        // CPU time rather than wall time, games may share cores with other games
+        final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        while (!simulator.isFinished()) {
+            Action[] actions = new Action[n];
+            for (int i = 0; i < n; i++) {
+                if (crashed[i] || !simulator.hasEntities(i)) {
+                    continue;
+                }
+                final PlayerView playerView = simulator.createPlayerView(i);
+                final long startTime = threadMXBean.getCurrentThreadCpuTime();
+                try {
+                    actions[i] = simulatedPlayers[i].getAction(playerView);
+                } catch (RuntimeException | AssertionError e) {
+                    // the server stops listening to a crashed player, its entities keep their last actions
+                    System.err.println("Player " + (i + 1) + " crashed on tick " + simulator.getCurrentTick() + ": " + e);
+                    crashed[i] = true;
+                }
+                tickNanos[i].record(threadMXBean.getCurrentThreadCpuTime() - startTime);
+            }
+            simulator.tick(actions);
+        }
+        int[] scores = new int[n];
+        for (int i = 0; i < n; i++) {
+            scores[i] = simulator.getScore(i);
+        }
+        return new GameResult(seed, simulator.getCurrentTick(), scores, crashed, tickNanos);
+    }
+
+    /**
+     * Usage: {@code Simulator [seed] [players] [strategy class path...]}. Without class paths every player is the
+     * current build of {@link MyStrategy}, each one in its own {@link IsolatedStrategy} class loader.
+     */
+    public static void main(String[] args) throws IOException {
+        final long seed = args.length < 1 ? new Random().nextLong() : Long.parseLong(args[0]);
+        final int playersCount = args.length < 2 ? 4 : Integer.parseInt(args[1]);
+        final GameRules rules = playersCount == 2 ? GameRules.twoPlayers() : GameRules.fourPlayers();
+        // every strategy only counts its own ticks against its time budget
+        System.setProperty(TimeBudget.CLOCK_PROPERTY, "thread");
+        IsolatedStrategy[] strategies = new IsolatedStrategy[playersCount];
+        try {
+            for (int i = 0; i < playersCount; i++) {
+                final URL classPath = args.length > 2 + i ? IsolatedStrategy.toUrl(args[2 + i]) : IsolatedStrategy.currentClassPath();
+                strategies[i] = new IsolatedStrategy(classPath);
+            }
+            System.out.println(play(rules, seed, strategies));
+        } finally {
+            for (IsolatedStrategy strategy : strategies) {
+                if (strategy != null) {
+                    strategy.close();
+                }
+            }
+        }
+    }
+}
@@ -73,7 +73,8 @@ public class SpecialAgents {
             return null;
         }
         if (!agents.containsKey(unit)) {
-            agents.put(unit, createProfileById(state, agents.size()));
+            // entities may come from a pool and be overwritten next tick, so don't keep the instance itself
+            agents.put(unit.snapshot(), createProfileById(state, agents.size()));
         }
         return agents.get(unit);
     }
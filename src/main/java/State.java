@@ -26,41 +26,49 @@ public class State {
     final int totalResources;
     final MapHelper map;
     final DebugInterface debugInterface;
+    // both null when there is no previous tick to build on (e.g. debug updates)
+    final MapLayers mapLayers;
     int debugPos = 30;
     final Map<Integer, Entity> entityById;
     final NeedProtection needProtection;
 
     private int countTotalPopulation() {
+        final EntityTable table = playerView.getEntityTable();
+        final int myId = playerView.getMyId();
         int population = 0;
-        for (Entity entity : playerView.getEntities()) {
-            if (entity.getPlayerId() == null || entity.getPlayerId() != playerView.getMyId()) {
+        for (int i = 0; i < table.size(); i++) {
+            if (table.getPlayerId(i) != myId) {
                 continue;
             }
-            if (entity.isActive()) {
-                population += getEntityProperties(entity).getPopulationProvide();
+            if (table.isActive(i)) {
+                population += getEntityTypeProperties(table.getEntityType(i)).getPopulationProvide();
             }
         }
         return population;
     }
 
     private int countExpectedPopulation() {
+        final EntityTable table = playerView.getEntityTable();
+        final int myId = playerView.getMyId();
         int population = 0;
-        for (Entity entity : playerView.getEntities()) {
-            if (entity.getPlayerId() == null || entity.getPlayerId() != playerView.getMyId()) {
+        for (int i = 0; i < table.size(); i++) {
+            if (table.getPlayerId(i) != myId) {
                 continue;
             }
-            population += getEntityProperties(entity).getPopulationProvide();
+            population += getEntityTypeProperties(table.getEntityType(i)).getPopulationProvide();
         }
         return population;
     }
 
     private int countUsedPopulation() {
+        final EntityTable table = playerView.getEntityTable();
+        final int myId = playerView.getMyId();
         int population = 0;
-        for (Entity entity : playerView.getEntities()) {
-            if (entity.getPlayerId() == null || entity.getPlayerId() != playerView.getMyId()) {
+        for (int i = 0; i < table.size(); i++) {
+            if (table.getPlayerId(i) != myId) {
                 continue;
             }
-            population += getEntityProperties(entity).getPopulationUse();
+            population += getEntityTypeProperties(table.getEntityType(i)).getPopulationUse();
         }
         return population;
     }
@@ -91,16 +99,16 @@ public class State {
 
     Map<Position, Double> computeAttackedByPos() {
         Map<Position, Double> attackedByPos = new HashMap<>();
-        for (Entity entity : playerView.getEntities()) {
-            if (entity.getPlayerId() == null) {
-                continue;
-            }
-            if (entity.getPlayerId() == playerView.getMyId()) {
+        final EntityTable table = playerView.getEntityTable();
+        final int myId = playerView.getMyId();
+        for (int i = 0; i < table.size(); i++) {
+            if (!table.hasPlayer(i) || table.getPlayerId(i) == myId) {
                 continue;
             }
-            if (entity.getEntityType() == EntityType.BUILDER_UNIT) {
+            if (table.getEntityType(i) == EntityType.BUILDER_UNIT) {
                 continue;
             }
+            final Entity entity = playerView.getEntities()[i];
             EntityProperties entityProperties = getEntityProperties(entity);
             AttackProperties attackProperties = entityProperties.getAttack();
             if (attackProperties == null) {
@@ -171,13 +179,13 @@ public class State {
 
     Map<Integer, Map<EntityType, Integer>> computeEntitiesByPlayer() {
         Map<Integer, List<Entity>> entitiesByPlayer = new HashMap<>();
-        for (Entity entity : playerView.getEntities()) {
-            Integer playerId = entity.getPlayerId();
-            if (playerId == null) {
+        final EntityTable table = playerView.getEntityTable();
+        for (int i = 0; i < table.size(); i++) {
+            if (!table.hasPlayer(i)) {
                 continue;
             }
-            List<Entity> playerEntities = entitiesByPlayer.computeIfAbsent(playerId, k -> new ArrayList<>());
-            playerEntities.add(entity);
+            List<Entity> playerEntities = entitiesByPlayer.computeIfAbsent(table.getPlayerId(i), k -> new ArrayList<>());
+            playerEntities.add(playerView.getEntities()[i]);
         }
         Map<Integer, Map<EntityType, Integer>> result = new HashMap<>();
         for (Map.Entry<Integer, List<Entity>> entry : entitiesByPlayer.entrySet()) {
@@ -200,66 +208,72 @@ public class State {
 
     List<Entity> computeAllEnemiesWarUnits() {
         List<Entity> enemiesUnits = new ArrayList<>();
-        for (Entity entity : playerView.getEntities()) {
-            if (entity.getPlayerId() == null) {
-                continue;
-            }
-            if (entity.getPlayerId() == playerView.getMyId()) {
+        final EntityTable table = playerView.getEntityTable();
+        final int myId = playerView.getMyId();
+        for (int i = 0; i < table.size(); i++) {
+            if (!table.hasPlayer(i) || table.getPlayerId(i) == myId) {
                 continue;
             }
-            if (entity.getEntityType().isBuilding()) {
+            final EntityType type = table.getEntityType(i);
+            if (type.isBuilding()) {
                 continue;
             }
-            if (entity.getEntityType() == EntityType.BUILDER_UNIT) {
+            if (type == EntityType.BUILDER_UNIT) {
                 continue;
             }
-            enemiesUnits.add(entity);
+            enemiesUnits.add(playerView.getEntities()[i]);
         }
         return enemiesUnits;
     }
 
     List<Entity> computeAllEnemiesEntities() {
         List<Entity> enemiesUnits = new ArrayList<>();
-        for (Entity entity : playerView.getEntities()) {
-            if (entity.getPlayerId() == null) {
-                continue;
-            }
-            if (entity.getPlayerId() == playerView.getMyId()) {
+        final EntityTable table = playerView.getEntityTable();
+        final int myId = playerView.getMyId();
+        for (int i = 0; i < table.size(); i++) {
+            if (!table.hasPlayer(i) || table.getPlayerId(i) == myId) {
                 continue;
             }
-            enemiesUnits.add(entity);
+            enemiesUnits.add(playerView.getEntities()[i]);
         }
         return enemiesUnits;
     }
 
     List<Entity> computeMyEntities() {
         List<Entity> myEntities = new ArrayList<>();
-        for (Entity entity : playerView.getEntities()) {
-            if (entity.getPlayerId() == null) {
+        final EntityTable table = playerView.getEntityTable();
+        final int myId = playerView.getMyId();
+        for (int i = 0; i < table.size(); i++) {
+            if (table.getPlayerId(i) != myId) {
                 continue;
             }
-            if (entity.getPlayerId() != playerView.getMyId()) {
-                continue;
-            }
-            myEntities.add(entity);
+            myEntities.add(playerView.getEntities()[i]);
         }
         return myEntities;
     }
 
     List<Entity> computeAllResourcesList() {
         List<Entity> resources = new ArrayList<>();
-        for (Entity entity : playerView.getEntities()) {
-            if (entity.getEntityType() == EntityType.RESOURCE) {
-                resources.add(entity);
+        final EntityTable table = playerView.getEntityTable();
+        for (int i = 0; i < table.size(); i++) {
+            if (table.getEntityType(i) == EntityType.RESOURCE) {
+                resources.add(playerView.getEntities()[i]);
             }
         }
         return resources;
     }
 
     State(final PlayerView playerView, final DebugInterface debugInterface) {
+        this(playerView, debugInterface, null);
+    }
+
+    State(final PlayerView playerView, final DebugInterface debugInterface, final MapLayers mapLayers) {
         CachedArrays.resetAllArrays();
+        CompressedCoords.init(playerView.getMapSize());
         this.debugInterface = debugInterface;
         this.playerView = playerView;
+        this.mapLayers = mapLayers;
+        TickProfiler.begin(TickProfiler.Phase.STATE_FIELDS);
         this.myEntities = computeMyEntities();
         this.allEnemiesWarUnits = computeAllEnemiesWarUnits();
         this.allEnemiesEntities = computeAllEnemiesEntities();
@@ -278,8 +292,13 @@ public class State {
         this.entityById = computeEntityById();
         this.debugTargets = new HashMap<>();
         this.debugUnitsInBadPostion = new HashSet<>();
+        TickProfiler.end(TickProfiler.Phase.STATE_FIELDS);
+        TickProfiler.begin(TickProfiler.Phase.MAP_HELPER);
         this.map = new MapHelper(this);
+        TickProfiler.end(TickProfiler.Phase.MAP_HELPER);
+        TickProfiler.begin(TickProfiler.Phase.MOVES_PICKER);
         this.movesPicker = new MovesPicker(this);
+        TickProfiler.end(TickProfiler.Phase.MOVES_PICKER);
 //        System.err.println("CURRENT TICK: " + playerView.getCurrentTick() + ", population: " + populationUsed + "/" + populationTotal);
         this.needProtection = new NeedProtection(this);
         OpponentTracker.updateState(this);
@@ -365,7 +384,7 @@ public class State {
         final int size = getEntityTypeProperties(toBuild).getSize();
         for (int dx = 0; dx < size; dx++) {
             for (int dy = 0; dy < size; dy++) {
-                if (map.underAttack[where.getX() + dx][where.getY() + dy].isUnderAttack()) {
+                if (map.getUnderAttack(where.getX() + dx, where.getY() + dy).isUnderAttack()) {
                     return true;
                 }
             }
@@ -393,7 +412,7 @@ public class State {
         }
         for (int checkX = x; checkX < x + objSize; checkX++) {
             for (int checkY = y; checkY < y + objSize; checkY++) {
-                Entity there = map.entitiesByPos[checkX][checkY];
+                Entity there = map.getEntity(checkX, checkY);
                 if (there != null) {
                     if (isMyUnit(there) && okToMoveMyUnits) {
 
@@ -401,7 +420,7 @@ public class State {
                         return false;
                     }
                 }
-                if (map.canGoThrough[x][y] == MapHelper.CAN_GO_THROUGH.UNKNOWN) {
+                if (map.getCanGoThrough(x, y) == MapHelper.CAN_GO_THROUGH.UNKNOWN) {
                     return false;
                 }
             }
@@ -464,7 +483,7 @@ public class State {
         if (!isEnoughResourcesToBuild(what)) {
 //            throw new AssertionError("Not enough money to build :(");
         }
-        if (map.entitiesByPos[where.getX()][where.getY()] != null) {
+        if (map.getEntity(where.getX(), where.getY()) != null) {
 //            throw new AssertionError("Build in a strange pos?");
         }
         movesPicker.addBuildAction(who, what, where, priority);
@@ -498,7 +517,7 @@ public class State {
             if (!insideMap(checkPos)) {
                 continue;
             }
-            if (!MapHelper.canGoThereOnCurrentTurn(map.canGoThrough[checkPos.getX()][checkPos.getY()], okToAttackFood, okGoThroughMyBuilders)) {
+            if (!MapHelper.canGoThereOnCurrentTurn(map.getCanGoThrough(checkPos.getX(), checkPos.getY()), okToAttackFood, okGoThroughMyBuilders)) {
                 continue;
             }
             canGo.add(checkPos);
@@ -526,7 +545,7 @@ public class State {
         if (!insideMap(pos)) {
             return false;
         }
-        final Entity entity = map.entitiesByPos[pos.getX()][pos.getY()];
+        final Entity entity = map.getEntity(pos.getX(), pos.getY());
         return (entity != null && entity.getEntityType() == EntityType.RESOURCE);
     }
 
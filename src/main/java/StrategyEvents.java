@@ -0,0 +1,122 @@
+import jdk.jfr.*;
+
+/**
+ * Flight Recorder events of the strategy. Nothing is recorded unless a recording is running, e.g.
+ * {@code -XX:StartFlightRecording=filename=game.jfr}, and callers fill the fields only after {@code shouldCommit()},
+ * so with recording off an event costs one allocation the JIT usually removes.
+ */
+class StrategyEvents {
+    private static final String CATEGORY = "RussianAICup";
+
+    @Name("russianaicup.Tick")
+    @Label("Tick")
+    @Category({CATEGORY, "Strategy"})
+    @StackTrace(false)
+    static class Tick extends Event {
+        @Label("Tick")
+        int tick;
+
+        @Label("Entities")
+        int entities;
+
+        @Label("Actions")
+        int actions;
+
+        @Label("State")
+        @Timespan
+        long stateDuration;
+
+        @Label("Map Helper")
+        @Timespan
+        long mapHelperDuration;
+
+        @Label("Ranged Units")
+        @Timespan
+        long rangedUnitsDuration;
+
+        @Label("Builders")
+        @Timespan
+        long buildersDuration;
+
+        @Label("Build Actions")
+        @Timespan
+        long buildActionsDuration;
+
+        @Label("Allocated")
+        @DataAmount
+        long allocatedBytes;
+    }
+
+    @Name("russianaicup.Dijkstra")
+    @Label("Dijkstra Path")
+    @Category({CATEGORY, "Pathfinding"})
+    static class DijkstraSearch extends Event {
+        @Label("Start X")
+        int startX;
+
+        @Label("Start Y")
+        int startY;
+
+        @Label("Target X")
+        int targetX;
+
+        @Label("Target Y")
+        int targetY;
+
+        @Label("Max Distance")
+        int maxDist;
+
+        @Label("Distance")
+        int dist;
+
+        @Label("Nodes Expanded")
+        int nodesExpanded;
+
+        @Label("Cache Hit")
+        @Description("Dijkstra from the same target with the same options was already started this tick")
+        boolean cacheHit;
+    }
+
+    @Name("russianaicup.Bfs")
+    @Label("BFS")
+    @Category({CATEGORY, "Pathfinding"})
+    static class BfsSearch extends Event {
+        @Label("Query")
+        String query;
+
+        @Label("Initial Cells")
+        int initialCells;
+
+        @Label("Max Distance")
+        int maxDist;
+
+        @Label("Nodes Expanded")
+        int nodesExpanded;
+
+        @Label("Nodes Visited")
+        int nodesVisited;
+
+        @Label("Results")
+        int results;
+    }
+
+    @Name("russianaicup.MinCostMaxFlow")
+    @Label("Min Cost Max Flow")
+    @Category({CATEGORY, "Matching"})
+    static class MinCostMaxFlowRun extends Event {
+        @Label("Vertices")
+        int vertices;
+
+        @Label("Edges")
+        int edges;
+
+        @Label("Augmenting Paths")
+        int augmentingPaths;
+
+        @Label("Flow")
+        long flow;
+
+        @Label("Cost")
+        long cost;
+    }
+}
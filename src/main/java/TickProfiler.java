@@ -0,0 +1,194 @@
+import util.LatencyHistogram;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Always-on timing and allocation accounting of {@link MyStrategy#getAction} phases. Every phase is wrapped in
+ * {@link #begin}/{@link #end}, may run several times per tick, and its per-tick sums go to {@link LatencyHistogram}s
+ * of nanoseconds and allocated bytes in {@link #endTick()}. {@link #printSummary()} is called by {@link Runner} on
+ * {@code Finish}, to stderr or to the file from {@code -DtickProfile=<path>}. Every tick is also a
+ * {@link StrategyEvents.Tick} Flight Recorder event.
+ */
+public class TickProfiler {
+    static final boolean ENABLED = true;
+    // thread allocation counter costs about as much as System.nanoTime()
+    static final boolean TRACK_ALLOCATIONS = true;
+    static final String OUTPUT_PROPERTY = "tickProfile";
+
+    enum Phase {
+        STATE(null),
+        STATE_FIELDS(STATE),
+        MAP_HELPER(STATE),
+        MOVES_PICKER(STATE),
+        RANGED_UNITS(null),
+        BUILDERS(null),
+        TRY_TO_BUILD(BUILDERS),
+        BUILDINGS(null),
+        BUILD_ACTIONS(null),
+        DEBUG(null),
+        // whole getAction, including ticks which skipped the other phases
+        TICK(null);
+
+        // nested phases are also counted in their parent
+        final Phase parent;
+
+        Phase(Phase parent) {
+            this.parent = parent;
+        }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = createThreadMXBean();
+
+    private static final LatencyHistogram[] nanosHistograms = new LatencyHistogram[PHASES.length];
+    private static final LatencyHistogram[] bytesHistograms = new LatencyHistogram[PHASES.length];
+    private static final long[] startNanos = new long[PHASES.length];
+    private static final long[] startBytes = new long[PHASES.length];
+    private static final long[] tickNanos = new long[PHASES.length];
+    private static final long[] tickBytes = new long[PHASES.length];
+    private static final boolean[] ranThisTick = new boolean[PHASES.length];
+    private static int currentTick;
+    private static StrategyEvents.Tick tickEvent;
+    private static int slowestTick = -1;
+
+    static {
+        for (int i = 0; i < PHASES.length; i++) {
+            nanosHistograms[i] = new LatencyHistogram();
+            bytesHistograms[i] = new LatencyHistogram();
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean createThreadMXBean() {
+        if (!TRACK_ALLOCATIONS || !(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!bean.isThreadAllocatedMemorySupported() || !bean.isThreadAllocatedMemoryEnabled()) {
+            return null;
+        }
+        return bean;
+    }
+
+    private static long allocatedBytes() {
+        return THREAD_MX_BEAN == null ? 0 : THREAD_MX_BEAN.getCurrentThreadAllocatedBytes();
+    }
+
+    static void startTick(int tick) {
+        if (!ENABLED) {
+            return;
+        }
+        currentTick = tick;
+        for (int i = 0; i < PHASES.length; i++) {
+            tickNanos[i] = 0;
+            tickBytes[i] = 0;
+            ranThisTick[i] = false;
+        }
+        tickEvent = new StrategyEvents.Tick();
+        tickEvent.begin();
+        begin(Phase.TICK);
+    }
+
+    static void begin(Phase phase) {
+        if (!ENABLED) {
+            return;
+        }
+        startBytes[phase.ordinal()] = allocatedBytes();
+        startNanos[phase.ordinal()] = System.nanoTime();
+    }
+
+    static void end(Phase phase) {
+        if (!ENABLED) {
+            return;
+        }
+        final long nanos = System.nanoTime();
+        final long bytes = allocatedBytes();
+        final int id = phase.ordinal();
+        tickNanos[id] += nanos - startNanos[id];
+        tickBytes[id] += bytes - startBytes[id];
+        ranThisTick[id] = true;
+    }
+
+    static void endTick(int entitiesCount, int actionsCount) {
+        if (!ENABLED) {
+            return;
+        }
+        end(Phase.TICK);
+        if (tickEvent.shouldCommit()) {
+            tickEvent.tick = currentTick;
+            tickEvent.entities = entitiesCount;
+            tickEvent.actions = actionsCount;
+            tickEvent.stateDuration = tickNanos[Phase.STATE.ordinal()];
+            tickEvent.mapHelperDuration = tickNanos[Phase.MAP_HELPER.ordinal()];
+            tickEvent.rangedUnitsDuration = tickNanos[Phase.RANGED_UNITS.ordinal()];
+            tickEvent.buildersDuration = tickNanos[Phase.BUILDERS.ordinal()];
+            tickEvent.buildActionsDuration = tickNanos[Phase.BUILD_ACTIONS.ordinal()];
+            tickEvent.allocatedBytes = tickBytes[Phase.TICK.ordinal()];
+            tickEvent.commit();
+        }
+        final LatencyHistogram tickHistogram = nanosHistograms[Phase.TICK.ordinal()];
+        final long previousMax = tickHistogram.getMax();
+        for (int i = 0; i < PHASES.length; i++) {
+            if (ranThisTick[i]) {
+                nanosHistograms[i].record(tickNanos[i]);
+                bytesHistograms[i].record(tickBytes[i]);
+            }
+        }
+        if (tickHistogram.getMax() > previousMax) {
+            slowestTick = currentTick;
+        }
+    }
+
+    static LatencyHistogram getNanosHistogram(Phase phase) {
+        return nanosHistograms[phase.ordinal()];
+    }
+
+    static LatencyHistogram getBytesHistogram(Phase phase) {
+        return bytesHistograms[phase.ordinal()];
+    }
+
+    private static String phaseName(Phase phase) {
+        return phase.parent == null ? phase.name() : "  " + phase.name();
+    }
+
+    static void printSummary(PrintStream out) {
+        out.println("Tick profile, ms per tick:");
+        out.printf("%-16s %6s %9s %9s %9s %9s %9s %10s%n", "phase", "ticks", "mean", "p50", "p90", "p99", "max", "total");
+        for (Phase phase : PHASES) {
+            final LatencyHistogram histogram = nanosHistograms[phase.ordinal()];
+            out.printf("%-16s %6d %9.3f %9.3f %9.3f %9.3f %9.3f %10.1f%n", phaseName(phase), histogram.getTotalCount(),
+                    histogram.getMean() / 1e6, histogram.getValueAtPercentile(50) / 1e6, histogram.getValueAtPercentile(90) / 1e6,
+                    histogram.getValueAtPercentile(99) / 1e6, histogram.getMax() / 1e6, histogram.getSum() / 1e6);
+        }
+        if (THREAD_MX_BEAN != null) {
+            out.println("Allocated KB per tick:");
+            out.printf("%-16s %6s %9s %9s %9s %9s %9s %10s%n", "phase", "ticks", "mean", "p50", "p90", "p99", "max", "total MB");
+            for (Phase phase : PHASES) {
+                final LatencyHistogram histogram = bytesHistograms[phase.ordinal()];
+                out.printf("%-16s %6d %9.1f %9.1f %9.1f %9.1f %9.1f %10.1f%n", phaseName(phase), histogram.getTotalCount(),
+                        histogram.getMean() / 1024, histogram.getValueAtPercentile(50) / 1024.0, histogram.getValueAtPercentile(90) / 1024.0,
+                        histogram.getValueAtPercentile(99) / 1024.0, histogram.getMax() / 1024.0, histogram.getSum() / (1024.0 * 1024));
+            }
+        }
+        out.println("Slowest tick: " + slowestTick);
+    }
+
+    static void printSummary() {
+        if (!ENABLED) {
+            return;
+        }
+        final String path = System.getProperty(OUTPUT_PROPERTY);
+        if (path == null) {
+            printSummary(System.err);
+            return;
+        }
+        try (PrintStream out = new PrintStream(new FileOutputStream(path))) {
+            printSummary(out);
+        } catch (IOException e) {
+            System.err.println("Can't write tick profile to " + path + ": " + e);
+            printSummary(System.err);
+        }
+    }
+}
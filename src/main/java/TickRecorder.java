@@ -0,0 +1,160 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Append-only recording of a game: for every tick the raw {@link model.ServerMessage.GetAction} bytes followed by the
+ * raw {@link model.ClientMessage.ActionMessage} bytes we answered with.
+ * <p>
+ * {@code <prefix>.bin} holds the messages, {@code <prefix>.idx} has one {@link #INDEX_ENTRY_SIZE}-byte little-endian
+ * entry per recorded tick: long offset in .bin, int server message length, int client message length. Both files are
+ * written through memory mapped windows, so recording a tick is two memory copies. If the process dies before
+ * {@link #close()}, the files keep a zero-filled tail; entries with zero server length should be ignored.
+ */
+public class TickRecorder implements Closeable {
+    static final int INDEX_ENTRY_SIZE = Long.BYTES + Integer.BYTES + Integer.BYTES;
+    private static final long DATA_WINDOW_SIZE = 64L << 20;
+    private static final long INDEX_WINDOW_SIZE = 1024L * INDEX_ENTRY_SIZE;
+
+    private static class MappedAppender implements Closeable {
+        private final FileChannel channel;
+        private final long windowSize;
+        private MappedByteBuffer window;
+        private long size;
+
+        MappedAppender(Path path, long windowSize) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.windowSize = windowSize;
+        }
+
+        ByteBuffer reserve(int byteCount) throws IOException {
+            if (window == null || window.remaining() < byteCount) {
+                window = channel.map(FileChannel.MapMode.READ_WRITE, size, Math.max(windowSize, byteCount));
+                window.order(ByteOrder.LITTLE_ENDIAN);
+            }
+            size += byteCount;
+            return window;
+        }
+
+        long size() {
+            return size;
+        }
+
+        @Override
+        public void close() throws IOException {
+            window = null;
+            channel.truncate(size);
+            channel.close();
+        }
+    }
+
+    private final MappedAppender data;
+    private final MappedAppender index;
+    private int recordedTicks;
+    private long tickOffset = -1;
+    private int serverLength;
+
+    TickRecorder(String pathPrefix) throws IOException {
+        this.data = new MappedAppender(Paths.get(pathPrefix + ".bin"), DATA_WINDOW_SIZE);
+        this.index = new MappedAppender(Paths.get(pathPrefix + ".idx"), INDEX_WINDOW_SIZE);
+    }
+
+    /**
+     * Copies the message right away, the strategy may read from the same buffer before we answer.
+     */
+    void recordServerMessage(ByteBuffer serverMessage) throws IOException {
+        if (tickOffset != -1) {
+            throw new AssertionError("Previous tick wasn't finished");
+        }
+        tickOffset = data.size();
+        serverLength = serverMessage.remaining();
+        data.reserve(serverLength).put(serverMessage);
+    }
+
+    void recordClientMessage(ByteBuffer clientMessage) throws IOException {
+        if (tickOffset == -1) {
+            throw new AssertionError("No server message for this tick");
+        }
+        final int clientLength = clientMessage.remaining();
+        data.reserve(clientLength).put(clientMessage);
+        index.reserve(INDEX_ENTRY_SIZE).putLong(tickOffset).putInt(serverLength).putInt(clientLength);
+        tickOffset = -1;
+        recordedTicks++;
+    }
+
+    int getRecordedTicks() {
+        return recordedTicks;
+    }
+
+    @Override
+    public void close() throws IOException {
+        data.close();
+        index.close();
+    }
+
+    /**
+     * Read side of a recording, any tick is found by its index entry without scanning the file.
+     */
+    static class Recording implements Closeable {
+        private final FileChannel dataChannel;
+        private final MappedByteBuffer data;
+        private final ByteBuffer index;
+        private final int tickCount;
+
+        Recording(String pathPrefix) throws IOException {
+            this.dataChannel = FileChannel.open(Paths.get(pathPrefix + ".bin"), StandardOpenOption.READ);
+            this.data = dataChannel.map(FileChannel.MapMode.READ_ONLY, 0, dataChannel.size());
+            try (FileChannel indexChannel = FileChannel.open(Paths.get(pathPrefix + ".idx"), StandardOpenOption.READ)) {
+                this.index = indexChannel.map(FileChannel.MapMode.READ_ONLY, 0, indexChannel.size()).order(ByteOrder.LITTLE_ENDIAN);
+            }
+            int ticks = index.capacity() / INDEX_ENTRY_SIZE;
+            while (ticks > 0 && getServerLength(ticks - 1) == 0) {
+                ticks--;
+            }
+            this.tickCount = ticks;
+        }
+
+        int getTickCount() {
+            return tickCount;
+        }
+
+        private long getOffset(int tick) {
+            return index.getLong(tick * INDEX_ENTRY_SIZE);
+        }
+
+        private int getServerLength(int tick) {
+            return index.getInt(tick * INDEX_ENTRY_SIZE + Long.BYTES);
+        }
+
+        private int getClientLength(int tick) {
+            return index.getInt(tick * INDEX_ENTRY_SIZE + Long.BYTES + Integer.BYTES);
+        }
+
+        private ByteBuffer slice(long offset, int length) {
+            ByteBuffer result = data.duplicate();
+            result.position((int) offset);
+            result.limit((int) offset + length);
+            return result.slice().order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        ByteBuffer getServerMessage(int tick) {
+            return slice(getOffset(tick), getServerLength(tick));
+        }
+
+        ByteBuffer getClientMessage(int tick) {
+            return slice(getOffset(tick) + getServerLength(tick), getClientLength(tick));
+        }
+
+        @Override
+        public void close() throws IOException {
+            dataChannel.close();
+        }
+    }
+}
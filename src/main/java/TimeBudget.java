@@ -0,0 +1,123 @@
+import model.PlayerView;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Tracks how much of the game's total time limit is already spent and turns it into a quality level: 1 means every
+ * stage runs at full size, smaller values mean the remaining ticks can't afford the recent tick cost and expensive
+ * stages should shrink proportionally (see {@link #scale}). Time is the CPU time of the thread running our ticks, so
+ * GC and JIT threads, which are busiest early in the game when ticks are still fast enough, don't lower the quality.
+ * {@code -DtimeBudgetClock=process} counts the whole process CPU time since the first tick instead.
+ * {@code -DtimeBudgetClock=off} keeps the full quality, so that replays and benchmarks don't depend on the speed of
+ * the machine.
+ */
+public class TimeBudget {
+    static final long TOTAL_LIMIT_NANOS = 40_000_000_000L;
+    // part of the limit we plan to use, the rest covers IO and whatever happens between ticks
+    static final double USABLE_PART = 0.8;
+    // first ticks are dominated by class loading and JIT, their cost says nothing about later ticks
+    static final int WARMUP_TICKS = 20;
+    static final double AVERAGE_ALPHA = 0.1;
+    static final double MIN_QUALITY = 0.2;
+    static final int MIN_DIJKSTRA_RUNS = 5;
+    static final String CLOCK_PROPERTY = "timeBudgetClock";
+
+    private static final boolean PROCESS_CLOCK = "process".equals(System.getProperty(CLOCK_PROPERTY));
+    private static final boolean DISABLED = "off".equals(System.getProperty(CLOCK_PROPERTY));
+    private static final com.sun.management.OperatingSystemMXBean OS_MX_BEAN = createOsMXBean();
+
+    private static long firstTickCpuTime = -1;
+    private static long tickStartCpuTime;
+    private static long ownTicksCpuTime;
+    private static int measuredTicks;
+    private static double averageTickNanos;
+    private static long tickAllowanceNanos = Long.MAX_VALUE;
+    private static double quality = 1.0;
+    // searches units asked for, granted or not, so that the quota follows the demand and not the previous quota
+    private static int dijkstraRequestsLastTick;
+    private static int dijkstraRequestsThisTick;
+    private static int dijkstraRunsThisTick;
+    private static int dijkstraRunsLimit = Integer.MAX_VALUE;
+
+    private static com.sun.management.OperatingSystemMXBean createOsMXBean() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean) {
+            return (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        }
+        return null;
+    }
+
+    private static long cpuTime() {
+        final long time;
+        if (PROCESS_CLOCK) {
+            time = OS_MX_BEAN == null ? -1 : OS_MX_BEAN.getProcessCpuTime();
+        } else {
+            time = ManagementFactory.getThreadMXBean().getCurrentThreadCpuTime();
+        }
+        return time >= 0 ? time : System.nanoTime();
+    }
+
+    static void startTick(PlayerView playerView) {
+        tickStartCpuTime = cpuTime();
+        if (firstTickCpuTime == -1) {
+            firstTickCpuTime = tickStartCpuTime;
+        }
+        final long spent = PROCESS_CLOCK ? tickStartCpuTime - firstTickCpuTime : ownTicksCpuTime;
+        final int ticksLeft = Math.max(1, playerView.getMaxTickCount() - playerView.getCurrentTick());
+        tickAllowanceNanos = Math.max(0, (long) (TOTAL_LIMIT_NANOS * USABLE_PART) - spent) / ticksLeft;
+        if (DISABLED || measuredTicks < WARMUP_TICKS) {
+            quality = 1.0;
+        } else if (tickAllowanceNanos == 0) {
+            // also when ticks are too fast for the clock and the average is 0 too
+            quality = MIN_QUALITY;
+        } else {
+            quality = Math.max(MIN_QUALITY, Math.min(1.0, tickAllowanceNanos / averageTickNanos));
+        }
+        dijkstraRequestsLastTick = dijkstraRequestsThisTick;
+        dijkstraRequestsThisTick = 0;
+        dijkstraRunsThisTick = 0;
+        dijkstraRunsLimit = quality >= 1.0 ? Integer.MAX_VALUE :
+                Math.max(MIN_DIJKSTRA_RUNS, (int) (dijkstraRequestsLastTick * quality));
+    }
+
+    static void endTick() {
+        final long tickNanos = cpuTime() - tickStartCpuTime;
+        ownTicksCpuTime += tickNanos;
+        measuredTicks++;
+        if (measuredTicks <= WARMUP_TICKS) {
+            averageTickNanos = tickNanos;
+        } else {
+            averageTickNanos += (tickNanos - averageTickNanos) * AVERAGE_ALPHA;
+        }
+    }
+
+    static long getTickAllowanceNanos() {
+        return tickAllowanceNanos;
+    }
+
+    static double getQuality() {
+        return quality;
+    }
+
+    /**
+     * @return {@code fullValue} scaled by the current quality, but not less than {@code minValue}
+     */
+    static int scale(int fullValue, int minValue) {
+        if (quality >= 1.0) {
+            return fullValue;
+        }
+        return Math.max(minValue, (int) Math.round(fullValue * quality));
+    }
+
+    /**
+     * Counts a unit's full Dijkstra search. When the budget is tight only a part of the number of searches asked for
+     * last tick is allowed, the rest of the units should do something cheaper. Critical units always get it.
+     */
+    static boolean tryUseDijkstra(boolean critical) {
+        dijkstraRequestsThisTick++;
+        if (!critical && dijkstraRunsThisTick >= dijkstraRunsLimit) {
+            return false;
+        }
+        dijkstraRunsThisTick++;
+        return true;
+    }
+}
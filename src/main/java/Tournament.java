@@ -0,0 +1,120 @@
+import util.LatencyHistogram;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plays many two-player {@link Simulator} games between two strategy builds at once, one game per worker thread.
+ * Games {@code 2k} and {@code 2k + 1} use seed {@code firstSeed + k} with the builds on swapped sides, so a map
+ * doesn't favor one of them.
+ * <p>
+ * Every finished game is appended to the CSV file right away, and the running score is printed to stdout in the same
+ * format as {@code batch-runner.py}.
+ */
+public class Tournament {
+    private static final String CSV_HEADER = "game,seed,ticks,a_player,score_a,score_b,winner,crashed_a,crashed_b,"
+            + "mean_ms_a,p99_ms_a,max_ms_a,total_s_a,mean_ms_b,p99_ms_b,max_ms_b,total_s_b";
+
+    private final URL classPathA;
+    private final URL classPathB;
+    private final PrintWriter csv;
+    private int gamesDone;
+    private int winsA;
+    private int winsB;
+
+    private Tournament(URL classPathA, URL classPathB, PrintWriter csv) {
+        this.classPathA = classPathA;
+        this.classPathB = classPathB;
+        this.csv = csv;
+    }
+
+    private Simulator.GameResult playGame(long seed, boolean aIsFirst) throws IOException {
+        try (IsolatedStrategy a = new IsolatedStrategy(classPathA);
+             IsolatedStrategy b = new IsolatedStrategy(classPathB)) {
+            Simulator.SimulatedPlayer[] players = aIsFirst ?
+                    new Simulator.SimulatedPlayer[]{a, b} :
+                    new Simulator.SimulatedPlayer[]{b, a};
+            return Simulator.play(GameRules.twoPlayers(), seed, players);
+        }
+    }
+
+    private static String formatTiming(LatencyHistogram histogram) {
+        return String.format(Locale.ROOT, "%.3f,%.3f,%.3f,%.2f", histogram.getMean() / 1e6,
+                histogram.getValueAtPercentile(99) / 1e6, histogram.getMax() / 1e6, histogram.getSum() / 1e9);
+    }
+
+    private synchronized void report(int game, Simulator.GameResult result, boolean aIsFirst) {
+        final int a = aIsFirst ? 0 : 1;
+        final int b = 1 - a;
+        final int winner = result.getWinner();
+        final String winnerName = winner == -1 ? "draw" : winner == a ? "a" : "b";
+        gamesDone++;
+        if (winner == a) {
+            winsA++;
+        } else if (winner == b) {
+            winsB++;
+        }
+        csv.println(game + "," + result.seed + "," + result.ticks + "," + (a + 1) + "," + result.scores[a] + ","
+                + result.scores[b] + "," + winnerName + "," + result.crashed[a] + "," + result.crashed[b] + ","
+                + formatTiming(result.tickNanos[a]) + "," + formatTiming(result.tickNanos[b]));
+        csv.flush();
+        System.out.println(gamesDone + "\t" + winsA + "\t" + winsB + "\t" + result.seed + "\t" + result.scores[a] + "\t" + result.scores[b]);
+    }
+
+    private synchronized void reportFailure(int game, long seed, Exception e) {
+        gamesDone++;
+        System.err.println("Game " + game + " (seed " + seed + ") failed: " + e);
+    }
+
+    /**
+     * Usage: {@code Tournament <class path a> <class path b> [games] [threads] [first seed] [csv path]}. A class path
+     * is a build output directory, e.g. {@code target/classes} or a {@code versions/<n>} directory.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.err.println("Usage: Tournament <class path a> <class path b> [games] [threads] [first seed] [csv path]");
+            return;
+        }
+        final URL classPathA = IsolatedStrategy.toUrl(args[0]);
+        final URL classPathB = IsolatedStrategy.toUrl(args[1]);
+        final int games = args.length < 3 ? 100 : Integer.parseInt(args[2]);
+        final int threads = args.length < 4 ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(args[3]);
+        final long firstSeed = args.length < 5 ? 1 : Long.parseLong(args[4]);
+        final String csvPath = args.length < 6 ? "tournament.csv" : args[5];
+        // every strategy only counts its own ticks against its time budget
+        System.setProperty(TimeBudget.CLOCK_PROPERTY, "thread");
+
+        try (PrintWriter csv = new PrintWriter(Files.newBufferedWriter(Paths.get(csvPath), StandardCharsets.UTF_8))) {
+            csv.println(CSV_HEADER);
+            csv.flush();
+            final Tournament tournament = new Tournament(classPathA, classPathB, csv);
+            System.out.println("games\ta\tb\tseed\tscore_a\tscore_b");
+            final long startTime = System.nanoTime();
+            final ExecutorService executor = Executors.newFixedThreadPool(threads);
+            for (int i = 0; i < games; i++) {
+                final int game = i;
+                final long seed = firstSeed + i / 2;
+                final boolean aIsFirst = i % 2 == 0;
+                executor.execute(() -> {
+                    try {
+                        tournament.report(game, tournament.playGame(seed, aIsFirst), aIsFirst);
+                    } catch (Exception e) {
+                        tournament.reportFailure(game, seed, e);
+                    }
+                });
+            }
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            System.out.printf("%d games in %.1f s: a won %d, b won %d%n", games, (System.nanoTime() - startTime) / 1e9,
+                    tournament.winsA, tournament.winsB);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+import model.Entity;
+import model.Position;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Orders units by urgency before the expensive per-unit planning, so when {@link TimeBudget} is tight and only part
+ * of the units can get full pathfinding, those are the units in trouble. With the full budget every unit is planned
+ * anyway, and the original order is kept.
+ */
+class UnitScheduler {
+    static final int URGENCY_UNDER_ATTACK = 4;
+    static final int URGENCY_NEAR_ENEMY = 2;
+    static final int URGENCY_PROTECTING = 1;
+    // critical units always get full planning
+    static final int CRITICAL_URGENCY = URGENCY_NEAR_ENEMY;
+    static final int PROTECTING_DIST = 10;
+
+    private static boolean isNearEnemy(final State state, final Position pos) {
+        final int myId = state.playerView.getMyId();
+        for (int it = 0; it < Directions.dx.length; it++) {
+            final int nx = pos.getX() + Directions.dx[it];
+            final int ny = pos.getY() + Directions.dy[it];
+            if (!state.map.insideMap(nx, ny)) {
+                continue;
+            }
+            final Entity entity = state.map.getEntity(nx, ny);
+            if (entity != null && entity.getPlayerId() != null && entity.getPlayerId() != myId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isProtecting(final State state, final Position pos) {
+        for (NeedProtection.ToPretect toProtect : state.needProtection.toProtect) {
+            if (toProtect.entity.getPosition().distTo(pos) <= PROTECTING_DIST) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static int urgency(final State state, final Entity unit) {
+        final Position pos = unit.getPosition();
+        int urgency = 0;
+        if (state.map.getUnderAttack(pos.getX(), pos.getY()).isUnderAttack()) {
+            urgency += URGENCY_UNDER_ATTACK;
+        }
+        if (isNearEnemy(state, pos)) {
+            urgency += URGENCY_NEAR_ENEMY;
+        }
+        if (isProtecting(state, pos)) {
+            urgency += URGENCY_PROTECTING;
+        }
+        return urgency;
+    }
+
+    static boolean isCritical(final State state, final Entity unit) {
+        return urgency(state, unit) >= CRITICAL_URGENCY;
+    }
+
+    static class UnitWithUrgency {
+        final Entity unit;
+        final int urgency;
+
+        UnitWithUrgency(Entity unit, int urgency) {
+            this.unit = unit;
+            this.urgency = urgency;
+        }
+    }
+
+    /**
+     * @return the most urgent units first, keeping the original order between units of the same urgency
+     */
+    static List<UnitWithUrgency> rankByUrgency(final State state, final List<Entity> units) {
+        List<UnitWithUrgency> withUrgency = new ArrayList<>(units.size());
+        for (Entity unit : units) {
+            withUrgency.add(new UnitWithUrgency(unit, urgency(state, unit)));
+        }
+        withUrgency.sort(Comparator.comparingInt(u -> -u.urgency));
+        return withUrgency;
+    }
+
+    /**
+     * @return {@link #rankByUrgency} without the urgencies, or the same list with the full budget
+     */
+    static List<Entity> orderByUrgency(final State state, final List<Entity> units) {
+        if (TimeBudget.getQuality() >= 1.0) {
+            return units;
+        }
+        List<Entity> result = new ArrayList<>(units.size());
+        for (UnitWithUrgency unitWithUrgency : rankByUrgency(state, units)) {
+            result.add(unitWithUrgency.unit);
+        }
+        return result;
+    }
+}
@@ -5,15 +5,11 @@ public class VertexPriorityQueue {
     CachedArrays.IntArray heap;
     int heapSize;
 
-    final int id;
-
     VertexPriorityQueue(int n) {
         dist = CachedArrays.getNewIntArray(n);
         posInHeap = CachedArrays.getNewIntArray(n);
         heap = CachedArrays.getNewIntArray(n);
         heapSize = 0;
-
-        id = State.rnd.nextInt();
     }
 
     void clear() {
@@ -0,0 +1,133 @@
+import model.EntityTable;
+import model.PlayerView;
+import util.IntList;
+
+import java.util.Arrays;
+
+/**
+ * What changed between the previous and the current {@link PlayerView}, matched by entity id.
+ * <p>
+ * Per-id data lives in plain arrays indexed by id, so {@link #update(PlayerView)} is one pass over the new entities
+ * and one over the previous ids. "Spawned" and "removed" are from our point of view: with fog of war they also
+ * include entities which just appeared in or left our sight.
+ */
+public class WorldDelta {
+    private static final int INITIAL_CAPACITY = 1 << 12;
+
+    private int version;
+    private int[] seenVersion = new int[INITIAL_CAPACITY];
+    private int[] lastX = new int[INITIAL_CAPACITY];
+    private int[] lastY = new int[INITIAL_CAPACITY];
+    private int[] lastHealth = new int[INITIAL_CAPACITY];
+    private boolean[] lastActive = new boolean[INITIAL_CAPACITY];
+    private int[] lastRow = new int[INITIAL_CAPACITY];
+    private IntList previousIds = new IntList();
+    private IntList currentIds = new IntList();
+
+    final IntList spawned = new IntList();
+    final IntList removed = new IntList();
+    // moved[i] went from (movedFromX[i], movedFromY[i]) to its current position
+    final IntList moved = new IntList();
+    final IntList movedFromX = new IntList();
+    final IntList movedFromY = new IntList();
+    // healthChanged[i] had healthBefore[i] health in the previous view
+    final IntList healthChanged = new IntList();
+    final IntList healthBefore = new IntList();
+    // buildings which became active or inactive
+    final IntList activeChanged = new IntList();
+
+    private void ensureCapacity(int id) {
+        if (id < seenVersion.length) {
+            return;
+        }
+        final int newLength = Math.max(seenVersion.length * 2, id + 1);
+        seenVersion = Arrays.copyOf(seenVersion, newLength);
+        lastX = Arrays.copyOf(lastX, newLength);
+        lastY = Arrays.copyOf(lastY, newLength);
+        lastHealth = Arrays.copyOf(lastHealth, newLength);
+        lastActive = Arrays.copyOf(lastActive, newLength);
+        lastRow = Arrays.copyOf(lastRow, newLength);
+    }
+
+    void update(final PlayerView playerView) {
+        spawned.clear();
+        removed.clear();
+        moved.clear();
+        movedFromX.clear();
+        movedFromY.clear();
+        healthChanged.clear();
+        healthBefore.clear();
+        activeChanged.clear();
+        currentIds.clear();
+
+        final int previousVersion = version;
+        version++;
+        final EntityTable table = playerView.getEntityTable();
+        for (int i = 0; i < table.size(); i++) {
+            final int id = table.getId(i);
+            final int x = table.getX(i);
+            final int y = table.getY(i);
+            final int health = table.getHealth(i);
+            final boolean active = table.isActive(i);
+            ensureCapacity(id);
+            if (previousVersion != 0 && seenVersion[id] == previousVersion) {
+                if (lastX[id] != x || lastY[id] != y) {
+                    moved.add(id);
+                    movedFromX.add(lastX[id]);
+                    movedFromY.add(lastY[id]);
+                }
+                if (lastHealth[id] != health) {
+                    healthChanged.add(id);
+                    healthBefore.add(lastHealth[id]);
+                }
+                if (lastActive[id] != active) {
+                    activeChanged.add(id);
+                }
+            } else {
+                spawned.add(id);
+            }
+            seenVersion[id] = version;
+            lastX[id] = x;
+            lastY[id] = y;
+            lastHealth[id] = health;
+            lastActive[id] = active;
+            lastRow[id] = i;
+            currentIds.add(id);
+        }
+        for (int i = 0; i < previousIds.size(); i++) {
+            final int id = previousIds.get(i);
+            if (seenVersion[id] != version) {
+                removed.add(id);
+            }
+        }
+        IntList tmp = previousIds;
+        previousIds = currentIds;
+        currentIds = tmp;
+    }
+
+    /**
+     * Last known position and health, also valid for entities from {@link #removed}.
+     */
+    int getLastX(int id) {
+        return lastX[id];
+    }
+
+    int getLastY(int id) {
+        return lastY[id];
+    }
+
+    int getLastHealth(int id) {
+        return lastHealth[id];
+    }
+
+    /**
+     * Row in the {@link EntityTable} of the current view, only for entities which are in it.
+     */
+    int getRow(int id) {
+        return lastRow[id];
+    }
+
+    boolean isFirstUpdate() {
+        return version == 1;
+    }
+}
@@ -0,0 +1,113 @@
+package model;
+
+import util.ByteBufferWriter;
+
+/**
+ * Encodes a {@link ClientMessage.ActionMessage} straight into a {@link ByteBufferWriter}, without the temporary
+ * arrays {@link util.StreamUtil} allocates for every value. The entity count is written first and patched in at the
+ * end.
+ */
+public class ActionMessageWriter {
+    private final ByteBufferWriter writer;
+    private int countPosition = -1;
+    private int count;
+
+    public ActionMessageWriter(ByteBufferWriter writer) {
+        this.writer = writer;
+    }
+
+    private void begin() {
+        if (countPosition != -1) {
+            throw new AssertionError("Previous action message wasn't finished");
+        }
+        writer.writeInt(ClientMessage.ActionMessage.TAG);
+        countPosition = writer.position();
+        writer.writeInt(0);
+        count = 0;
+    }
+
+    private void end() {
+        if (countPosition == -1) {
+            throw new AssertionError("Action message wasn't started");
+        }
+        writer.putInt(countPosition, count);
+        countPosition = -1;
+    }
+
+    private void startEntity(int entityId) {
+        if (countPosition == -1) {
+            throw new AssertionError("Action message wasn't started");
+        }
+        count++;
+        writer.writeInt(entityId);
+    }
+
+    private void writeMove(int x, int y, boolean findClosestPosition, boolean breakThrough) {
+        writer.writeBoolean(true);
+        writer.writeInt(x);
+        writer.writeInt(y);
+        writer.writeBoolean(findClosestPosition);
+        writer.writeBoolean(breakThrough);
+    }
+
+    private void writeAutoAttack(int pathfindRange, EntityType[] validTargets) {
+        writer.writeBoolean(true);
+        writer.writeInt(pathfindRange);
+        writer.writeInt(validTargets.length);
+        for (EntityType validTarget : validTargets) {
+            writer.writeInt(validTarget.tag);
+        }
+    }
+
+    private void entityAction(int entityId, EntityAction action) {
+        startEntity(entityId);
+        MoveAction moveAction = action.getMoveAction();
+        if (moveAction == null) {
+            writer.writeBoolean(false);
+        } else {
+            writeMove(moveAction.getTarget().getX(), moveAction.getTarget().getY(), moveAction.isFindClosestPosition(), moveAction.isBreakThrough());
+        }
+        BuildAction buildAction = action.getBuildAction();
+        if (buildAction == null) {
+            writer.writeBoolean(false);
+        } else {
+            writer.writeBoolean(true);
+            writer.writeInt(buildAction.getEntityType().tag);
+            writer.writeInt(buildAction.getPosition().getX());
+            writer.writeInt(buildAction.getPosition().getY());
+        }
+        AttackAction attackAction = action.getAttackAction();
+        if (attackAction == null) {
+            writer.writeBoolean(false);
+        } else {
+            writer.writeBoolean(true);
+            if (attackAction.getTarget() == null) {
+                writer.writeBoolean(false);
+            } else {
+                writer.writeBoolean(true);
+                writer.writeInt(attackAction.getTarget());
+            }
+            AutoAttack autoAttack = attackAction.getAutoAttack();
+            if (autoAttack == null) {
+                writer.writeBoolean(false);
+            } else {
+                writeAutoAttack(autoAttack.getPathfindRange(), autoAttack.getValidTargets());
+            }
+        }
+        RepairAction repairAction = action.getRepairAction();
+        if (repairAction == null) {
+            writer.writeBoolean(false);
+        } else {
+            writer.writeBoolean(true);
+            writer.writeInt(repairAction.getTarget());
+        }
+    }
+
+    public void write(Action action) {
+        begin();
+        for (java.util.Map.Entry<Integer, EntityAction> entry : action.getEntityActions().entrySet()) {
+            entityAction(entry.getKey(), entry.getValue());
+        }
+        end();
+    }
+}
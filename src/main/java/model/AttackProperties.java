@@ -1,5 +1,6 @@
 package model;
 
+import util.ByteBufferReader;
 import util.StreamUtil;
 
 public class AttackProperties {
@@ -50,6 +51,14 @@ public class AttackProperties {
         return result;
     }
 
+    public static AttackProperties readFrom(ByteBufferReader reader) throws java.io.IOException {
+        AttackProperties result = new AttackProperties();
+        result.attackRange = reader.readInt();
+        result.damage = reader.readInt();
+        result.collectResource = reader.readBoolean();
+        return result;
+    }
+
     public void writeTo(java.io.OutputStream stream) throws java.io.IOException {
         StreamUtil.writeInt(stream, attackRange);
         StreamUtil.writeInt(stream, damage);
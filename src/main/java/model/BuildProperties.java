@@ -1,5 +1,6 @@
 package model;
 
+import util.ByteBufferReader;
 import util.StreamUtil;
 
 public class BuildProperties {
@@ -78,6 +79,53 @@ public class BuildProperties {
         return result;
     }
 
+    public static BuildProperties readFrom(ByteBufferReader reader) throws java.io.IOException {
+        BuildProperties result = new BuildProperties();
+        result.options = new model.EntityType[reader.readInt()];
+        for (int i = 0; i < result.options.length; i++) {
+            switch (reader.readInt()) {
+                case 0:
+                    result.options[i] = model.EntityType.WALL;
+                    break;
+                case 1:
+                    result.options[i] = model.EntityType.HOUSE;
+                    break;
+                case 2:
+                    result.options[i] = model.EntityType.BUILDER_BASE;
+                    break;
+                case 3:
+                    result.options[i] = model.EntityType.BUILDER_UNIT;
+                    break;
+                case 4:
+                    result.options[i] = model.EntityType.MELEE_BASE;
+                    break;
+                case 5:
+                    result.options[i] = model.EntityType.MELEE_UNIT;
+                    break;
+                case 6:
+                    result.options[i] = model.EntityType.RANGED_BASE;
+                    break;
+                case 7:
+                    result.options[i] = model.EntityType.RANGED_UNIT;
+                    break;
+                case 8:
+                    result.options[i] = model.EntityType.RESOURCE;
+                    break;
+                case 9:
+                    result.options[i] = model.EntityType.TURRET;
+                    break;
+                default:
+                    throw new java.io.IOException("Unexpected tag value");
+            }
+        }
+        if (reader.readBoolean()) {
+            result.initHealth = reader.readInt();
+        } else {
+            result.initHealth = null;
+        }
+        return result;
+    }
+
     public void writeTo(java.io.OutputStream stream) throws java.io.IOException {
         StreamUtil.writeInt(stream, options.length);
         for (model.EntityType optionsElement : options) {
@@ -1,5 +1,6 @@
 package model;
 
+import util.ByteBufferReader;
 import util.StreamUtil;
 
 public class Camera {
@@ -74,6 +75,16 @@ public class Camera {
         return result;
     }
 
+    public static Camera readFrom(ByteBufferReader reader) throws java.io.IOException {
+        Camera result = new Camera();
+        result.center = model.Vec2Float.readFrom(reader);
+        result.rotation = reader.readFloat();
+        result.attack = reader.readFloat();
+        result.distance = reader.readFloat();
+        result.perspective = reader.readBoolean();
+        return result;
+    }
+
     public void writeTo(java.io.OutputStream stream) throws java.io.IOException {
         center.writeTo(stream);
         StreamUtil.writeFloat(stream, rotation);
@@ -1,5 +1,6 @@
 package model;
 
+import util.ByteBufferReader;
 import util.StreamUtil;
 
 public class DebugState {
@@ -89,6 +90,20 @@ public class DebugState {
         return result;
     }
 
+    public static DebugState readFrom(ByteBufferReader reader) throws java.io.IOException {
+        DebugState result = new DebugState();
+        result.windowSize = Position.readFrom(reader);
+        result.mousePosWindow = model.Vec2Float.readFrom(reader);
+        result.mousePosWorld = model.Vec2Float.readFrom(reader);
+        result.pressedKeys = new String[reader.readInt()];
+        for (int i = 0; i < result.pressedKeys.length; i++) {
+            result.pressedKeys[i] = reader.readString();
+        }
+        result.camera = model.Camera.readFrom(reader);
+        result.playerIndex = reader.readInt();
+        return result;
+    }
+
     public void writeTo(java.io.OutputStream stream) throws java.io.IOException {
         windowSize.writeTo(stream);
         mousePosWindow.writeTo(stream);
@@ -1,5 +1,6 @@
 package model;
 
+import util.ByteBufferReader;
 import util.StreamUtil;
 
 import java.util.Objects;
@@ -86,6 +87,13 @@ public class Entity {
         this.active = active;
     }
 
+    /**
+     * Detached copy that is safe to keep across ticks even when entities are decoded through an {@link EntityPool}.
+     */
+    public Entity snapshot() {
+        return new Entity(id, playerId, entityType, new Position(position.getX(), position.getY()), health, active);
+    }
+
     public static Entity readFrom(java.io.InputStream stream) throws java.io.IOException {
         Entity result = new Entity();
         result.id = StreamUtil.readInt(stream);
@@ -134,6 +142,54 @@ public class Entity {
         return result;
     }
 
+    public static Entity readFrom(ByteBufferReader reader) throws java.io.IOException {
+        Entity result = new Entity();
+        result.id = reader.readInt();
+        if (reader.readBoolean()) {
+            result.playerId = reader.readInt();
+        } else {
+            result.playerId = null;
+        }
+        switch (reader.readInt()) {
+            case 0:
+                result.entityType = model.EntityType.WALL;
+                break;
+            case 1:
+                result.entityType = model.EntityType.HOUSE;
+                break;
+            case 2:
+                result.entityType = model.EntityType.BUILDER_BASE;
+                break;
+            case 3:
+                result.entityType = model.EntityType.BUILDER_UNIT;
+                break;
+            case 4:
+                result.entityType = model.EntityType.MELEE_BASE;
+                break;
+            case 5:
+                result.entityType = model.EntityType.MELEE_UNIT;
+                break;
+            case 6:
+                result.entityType = model.EntityType.RANGED_BASE;
+                break;
+            case 7:
+                result.entityType = model.EntityType.RANGED_UNIT;
+                break;
+            case 8:
+                result.entityType = model.EntityType.RESOURCE;
+                break;
+            case 9:
+                result.entityType = model.EntityType.TURRET;
+                break;
+            default:
+                throw new java.io.IOException("Unexpected tag value");
+        }
+        result.position = Position.readFrom(reader);
+        result.health = reader.readInt();
+        result.active = reader.readBoolean();
+        return result;
+    }
+
     public void writeTo(java.io.OutputStream stream) throws java.io.IOException {
         StreamUtil.writeInt(stream, id);
         if (playerId == null) {
@@ -0,0 +1,39 @@
+package model;
+
+/**
+ * Keeps decoded {@link Entity} (with its {@link Position}) and {@link Player} instances between ticks, so a pooled
+ * {@link PlayerView#readFrom(util.ByteBufferReader, EntityPool)} overwrites last tick's objects instead of allocating
+ * new ones. Entities are reused by id, players by index.
+ * <p>
+ * Objects from a pooled decode are only valid until the next tick is read. Anything kept for longer should store
+ * {@link Entity#snapshot()} instead of the entity itself.
+ */
+public class EntityPool {
+    private static final int INITIAL_CAPACITY = 1 << 12;
+
+    private Entity[] entitiesById = new Entity[INITIAL_CAPACITY];
+    private Player[] players = new Player[0];
+
+    Entity getEntity(int id) {
+        if (id >= entitiesById.length) {
+            entitiesById = java.util.Arrays.copyOf(entitiesById, Math.max(entitiesById.length * 2, id + 1));
+        }
+        Entity entity = entitiesById[id];
+        if (entity == null) {
+            entity = new Entity();
+            entity.setPosition(new Position());
+            entitiesById[id] = entity;
+        }
+        return entity;
+    }
+
+    Player[] getPlayers(int count) {
+        if (players.length != count) {
+            players = new Player[count];
+            for (int i = 0; i < count; i++) {
+                players[i] = new Player();
+            }
+        }
+        return players;
+    }
+}
@@ -1,5 +1,6 @@
 package model;
 
+import util.ByteBufferReader;
 import util.StreamUtil;
 
 public class EntityProperties {
@@ -190,6 +191,36 @@ public class EntityProperties {
         return result;
     }
 
+    public static EntityProperties readFrom(ByteBufferReader reader) throws java.io.IOException {
+        EntityProperties result = new EntityProperties();
+        result.size = reader.readInt();
+        result.buildScore = reader.readInt();
+        result.destroyScore = reader.readInt();
+        result.canMove = reader.readBoolean();
+        result.populationProvide = reader.readInt();
+        result.populationUse = reader.readInt();
+        result.maxHealth = reader.readInt();
+        result.initialCost = reader.readInt();
+        result.sightRange = reader.readInt();
+        result.resourcePerHealth = reader.readInt();
+        if (reader.readBoolean()) {
+            result.build = model.BuildProperties.readFrom(reader);
+        } else {
+            result.build = null;
+        }
+        if (reader.readBoolean()) {
+            result.attack = model.AttackProperties.readFrom(reader);
+        } else {
+            result.attack = null;
+        }
+        if (reader.readBoolean()) {
+            result.repair = model.RepairProperties.readFrom(reader);
+        } else {
+            result.repair = null;
+        }
+        return result;
+    }
+
     public void writeTo(java.io.OutputStream stream) throws java.io.IOException {
         StreamUtil.writeInt(stream, size);
         StreamUtil.writeInt(stream, buildScore);
@@ -0,0 +1,141 @@
+package model;
+
+import util.ByteBufferReader;
+
+/**
+ * Structure-of-arrays view of {@link PlayerView#getEntities()}. Row {@code i} describes the same entity as
+ * {@code getEntities()[i]}, so hot loops can filter on primitives and only touch the object when they need it.
+ */
+public class EntityTable {
+    public static final int NO_PLAYER = -1;
+
+    private static final EntityType[] ENTITY_TYPES = EntityType.values();
+
+    private final int size;
+    private final int[] id;
+    private final int[] playerId;
+    private final byte[] entityType;
+    private final int[] x;
+    private final int[] y;
+    private final int[] health;
+    private final boolean[] active;
+
+    private EntityTable(int size) {
+        this.size = size;
+        this.id = new int[size];
+        this.playerId = new int[size];
+        this.entityType = new byte[size];
+        this.x = new int[size];
+        this.y = new int[size];
+        this.health = new int[size];
+        this.active = new boolean[size];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getId(int i) {
+        return id[i];
+    }
+
+    public int getPlayerId(int i) {
+        return playerId[i];
+    }
+
+    public boolean hasPlayer(int i) {
+        return playerId[i] != NO_PLAYER;
+    }
+
+    public int getEntityTypeOrdinal(int i) {
+        return entityType[i];
+    }
+
+    public EntityType getEntityType(int i) {
+        return ENTITY_TYPES[entityType[i]];
+    }
+
+    public int getX(int i) {
+        return x[i];
+    }
+
+    public int getY(int i) {
+        return y[i];
+    }
+
+    public int getHealth(int i) {
+        return health[i];
+    }
+
+    public boolean isActive(int i) {
+        return active[i];
+    }
+
+    public Entity createEntity(int i) {
+        return new Entity(id[i], playerId[i] == NO_PLAYER ? null : playerId[i], ENTITY_TYPES[entityType[i]], new Position(x[i], y[i]), health[i], active[i]);
+    }
+
+    public Entity[] createEntities() {
+        Entity[] entities = new Entity[size];
+        for (int i = 0; i < size; i++) {
+            entities[i] = createEntity(i);
+        }
+        return entities;
+    }
+
+    /**
+     * Same as {@link #createEntities()}, but overwrites the instances kept in {@code pool} instead of allocating.
+     */
+    public Entity[] fillEntities(EntityPool pool) {
+        Entity[] entities = new Entity[size];
+        for (int i = 0; i < size; i++) {
+            Entity entity = pool.getEntity(id[i]);
+            entity.setId(id[i]);
+            entity.setPlayerId(playerId[i] == NO_PLAYER ? null : playerId[i]);
+            entity.setEntityType(ENTITY_TYPES[entityType[i]]);
+            entity.getPosition().setX(x[i]);
+            entity.getPosition().setY(y[i]);
+            entity.setHealth(health[i]);
+            entity.setActive(active[i]);
+            entities[i] = entity;
+        }
+        return entities;
+    }
+
+    public static EntityTable fromEntities(Entity[] entities) {
+        EntityTable result = new EntityTable(entities.length);
+        for (int i = 0; i < entities.length; i++) {
+            Entity entity = entities[i];
+            result.id[i] = entity.getId();
+            result.playerId[i] = entity.getPlayerId() == null ? NO_PLAYER : entity.getPlayerId();
+            result.entityType[i] = (byte) entity.getEntityType().ordinal();
+            result.x[i] = entity.getPosition().getX();
+            result.y[i] = entity.getPosition().getY();
+            result.health[i] = entity.getHealth();
+            result.active[i] = entity.isActive();
+        }
+        return result;
+    }
+
+    public static EntityTable readFrom(ByteBufferReader reader) throws java.io.IOException {
+        EntityTable result = new EntityTable(reader.readInt());
+        for (int i = 0; i < result.size; i++) {
+            result.id[i] = reader.readInt();
+            if (reader.readBoolean()) {
+                result.playerId[i] = reader.readInt();
+            } else {
+                result.playerId[i] = NO_PLAYER;
+            }
+            int tag = reader.readInt();
+            if (tag < 0 || tag >= ENTITY_TYPES.length) {
+                throw new java.io.IOException("Unexpected tag value");
+            }
+            result.entityType[i] = (byte) tag;
+            result.x[i] = reader.readInt();
+            result.y[i] = reader.readInt();
+            result.health[i] = reader.readInt();
+            result.active[i] = reader.readBoolean();
+        }
+        return result;
+    }
+}
@@ -1,5 +1,6 @@
 package model;
 
+import util.ByteBufferReader;
 import util.StreamUtil;
 
 public class Player {
@@ -50,6 +51,21 @@ public class Player {
         return result;
     }
 
+    public static Player readFrom(ByteBufferReader reader) throws java.io.IOException {
+        Player result = new Player();
+        result.id = reader.readInt();
+        result.score = reader.readInt();
+        result.resource = reader.readInt();
+        return result;
+    }
+
+    public static Player readFrom(ByteBufferReader reader, Player result) throws java.io.IOException {
+        result.id = reader.readInt();
+        result.score = reader.readInt();
+        result.resource = reader.readInt();
+        return result;
+    }
+
     public void writeTo(java.io.OutputStream stream) throws java.io.IOException {
         StreamUtil.writeInt(stream, id);
         StreamUtil.writeInt(stream, score);
@@ -1,5 +1,6 @@
 package model;
 
+import util.ByteBufferReader;
 import util.StreamUtil;
 
 public class PlayerView {
@@ -100,6 +101,16 @@ public class PlayerView {
 
     public void setEntities(model.Entity[] entities) {
         this.entities = entities;
+        this.entityTable = null;
+    }
+
+    private model.EntityTable entityTable;
+
+    public model.EntityTable getEntityTable() {
+        if (entityTable == null) {
+            entityTable = model.EntityTable.fromEntities(entities);
+        }
+        return entityTable;
     }
 
     public PlayerView() {
@@ -178,6 +189,77 @@ public class PlayerView {
         return result;
     }
 
+    public static PlayerView readFrom(ByteBufferReader reader) throws java.io.IOException {
+        return readFrom(reader, null);
+    }
+
+    public static PlayerView readFrom(ByteBufferReader reader, EntityPool pool) throws java.io.IOException {
+        PlayerView result = new PlayerView();
+        result.myId = reader.readInt();
+        result.mapSize = reader.readInt();
+        result.fogOfWar = reader.readBoolean();
+        int entityPropertiesSize = reader.readInt();
+        result.entityProperties = new java.util.HashMap<>(entityPropertiesSize);
+        for (int i = 0; i < entityPropertiesSize; i++) {
+            model.EntityType entityPropertiesKey;
+            switch (reader.readInt()) {
+                case 0:
+                    entityPropertiesKey = model.EntityType.WALL;
+                    break;
+                case 1:
+                    entityPropertiesKey = model.EntityType.HOUSE;
+                    break;
+                case 2:
+                    entityPropertiesKey = model.EntityType.BUILDER_BASE;
+                    break;
+                case 3:
+                    entityPropertiesKey = model.EntityType.BUILDER_UNIT;
+                    break;
+                case 4:
+                    entityPropertiesKey = model.EntityType.MELEE_BASE;
+                    break;
+                case 5:
+                    entityPropertiesKey = model.EntityType.MELEE_UNIT;
+                    break;
+                case 6:
+                    entityPropertiesKey = model.EntityType.RANGED_BASE;
+                    break;
+                case 7:
+                    entityPropertiesKey = model.EntityType.RANGED_UNIT;
+                    break;
+                case 8:
+                    entityPropertiesKey = model.EntityType.RESOURCE;
+                    break;
+                case 9:
+                    entityPropertiesKey = model.EntityType.TURRET;
+                    break;
+                default:
+                    throw new java.io.IOException("Unexpected tag value");
+            }
+            model.EntityProperties entityPropertiesValue;
+            entityPropertiesValue = model.EntityProperties.readFrom(reader);
+            result.entityProperties.put(entityPropertiesKey, entityPropertiesValue);
+        }
+        result.maxTickCount = reader.readInt();
+        result.maxPathfindNodes = reader.readInt();
+        result.currentTick = reader.readInt();
+        int playersSize = reader.readInt();
+        if (pool == null) {
+            result.players = new model.Player[playersSize];
+            for (int i = 0; i < result.players.length; i++) {
+                result.players[i] = model.Player.readFrom(reader);
+            }
+        } else {
+            result.players = pool.getPlayers(playersSize);
+            for (int i = 0; i < result.players.length; i++) {
+                model.Player.readFrom(reader, result.players[i]);
+            }
+        }
+        result.entityTable = model.EntityTable.readFrom(reader);
+        result.entities = pool == null ? result.entityTable.createEntities() : result.entityTable.fillEntities(pool);
+        return result;
+    }
+
     public void writeTo(java.io.OutputStream stream) throws java.io.IOException {
         StreamUtil.writeInt(stream, myId);
         StreamUtil.writeInt(stream, mapSize);
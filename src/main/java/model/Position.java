@@ -1,5 +1,6 @@
 package model;
 
+import util.ByteBufferReader;
 import util.StreamUtil;
 
 import java.util.Objects;
@@ -50,6 +51,13 @@ public class Position {
         return result;
     }
 
+    public static Position readFrom(ByteBufferReader reader) throws java.io.IOException {
+        Position result = new Position();
+        result.x = reader.readInt();
+        result.y = reader.readInt();
+        return result;
+    }
+
     public void writeTo(java.io.OutputStream stream) throws java.io.IOException {
         StreamUtil.writeInt(stream, x);
         StreamUtil.writeInt(stream, y);
@@ -1,5 +1,6 @@
 package model;
 
+import util.ByteBufferReader;
 import util.StreamUtil;
 
 public class RepairProperties {
@@ -74,6 +75,49 @@ public class RepairProperties {
         return result;
     }
 
+    public static RepairProperties readFrom(ByteBufferReader reader) throws java.io.IOException {
+        RepairProperties result = new RepairProperties();
+        result.validTargets = new model.EntityType[reader.readInt()];
+        for (int i = 0; i < result.validTargets.length; i++) {
+            switch (reader.readInt()) {
+                case 0:
+                    result.validTargets[i] = model.EntityType.WALL;
+                    break;
+                case 1:
+                    result.validTargets[i] = model.EntityType.HOUSE;
+                    break;
+                case 2:
+                    result.validTargets[i] = model.EntityType.BUILDER_BASE;
+                    break;
+                case 3:
+                    result.validTargets[i] = model.EntityType.BUILDER_UNIT;
+                    break;
+                case 4:
+                    result.validTargets[i] = model.EntityType.MELEE_BASE;
+                    break;
+                case 5:
+                    result.validTargets[i] = model.EntityType.MELEE_UNIT;
+                    break;
+                case 6:
+                    result.validTargets[i] = model.EntityType.RANGED_BASE;
+                    break;
+                case 7:
+                    result.validTargets[i] = model.EntityType.RANGED_UNIT;
+                    break;
+                case 8:
+                    result.validTargets[i] = model.EntityType.RESOURCE;
+                    break;
+                case 9:
+                    result.validTargets[i] = model.EntityType.TURRET;
+                    break;
+                default:
+                    throw new java.io.IOException("Unexpected tag value");
+            }
+        }
+        result.power = reader.readInt();
+        return result;
+    }
+
     public void writeTo(java.io.OutputStream stream) throws java.io.IOException {
         StreamUtil.writeInt(stream, validTargets.length);
         for (model.EntityType validTargetsElement : validTargets) {
@@ -1,5 +1,6 @@
 package model;
 
+import util.ByteBufferReader;
 import util.StreamUtil;
 
 public abstract class ServerMessage {
@@ -18,6 +19,27 @@ public abstract class ServerMessage {
         }
     }
 
+    public static ServerMessage readFrom(ByteBufferReader reader) throws java.io.IOException {
+        return readFrom(reader, null);
+    }
+
+    /**
+     * Only {@link GetAction} is decoded through the pool; {@link DebugUpdate} may arrive while the strategy still
+     * uses the entities of the last tick.
+     */
+    public static ServerMessage readFrom(ByteBufferReader reader, EntityPool pool) throws java.io.IOException {
+        switch (reader.readInt()) {
+            case GetAction.TAG:
+                return GetAction.readFrom(reader, pool);
+            case Finish.TAG:
+                return Finish.readFrom(reader);
+            case DebugUpdate.TAG:
+                return DebugUpdate.readFrom(reader);
+            default:
+                throw new java.io.IOException("Unexpected tag value");
+        }
+    }
+
     public static class GetAction extends ServerMessage {
         public static final int TAG = 0;
         private model.PlayerView playerView;
@@ -55,6 +77,17 @@ public abstract class ServerMessage {
             return result;
         }
 
+        public static GetAction readFrom(ByteBufferReader reader) throws java.io.IOException {
+            return readFrom(reader, null);
+        }
+
+        public static GetAction readFrom(ByteBufferReader reader, EntityPool pool) throws java.io.IOException {
+            GetAction result = new GetAction();
+            result.playerView = model.PlayerView.readFrom(reader, pool);
+            result.debugAvailable = reader.readBoolean();
+            return result;
+        }
+
         @Override
         public void writeTo(java.io.OutputStream stream) throws java.io.IOException {
             StreamUtil.writeInt(stream, TAG);
@@ -74,6 +107,11 @@ public abstract class ServerMessage {
             return result;
         }
 
+        public static Finish readFrom(ByteBufferReader reader) throws java.io.IOException {
+            Finish result = new Finish();
+            return result;
+        }
+
         @Override
         public void writeTo(java.io.OutputStream stream) throws java.io.IOException {
             StreamUtil.writeInt(stream, TAG);
@@ -105,6 +143,12 @@ public abstract class ServerMessage {
             return result;
         }
 
+        public static DebugUpdate readFrom(ByteBufferReader reader) throws java.io.IOException {
+            DebugUpdate result = new DebugUpdate();
+            result.playerView = model.PlayerView.readFrom(reader);
+            return result;
+        }
+
         @Override
         public void writeTo(java.io.OutputStream stream) throws java.io.IOException {
             StreamUtil.writeInt(stream, TAG);
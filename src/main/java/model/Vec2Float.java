@@ -1,5 +1,6 @@
 package model;
 
+import util.ByteBufferReader;
 import util.StreamUtil;
 
 public class Vec2Float {
@@ -47,6 +48,13 @@ public class Vec2Float {
         return result;
     }
 
+    public static Vec2Float readFrom(ByteBufferReader reader) throws java.io.IOException {
+        Vec2Float result = new Vec2Float();
+        result.x = reader.readFloat();
+        result.y = reader.readFloat();
+        return result;
+    }
+
     public void writeTo(java.io.OutputStream stream) throws java.io.IOException {
         StreamUtil.writeFloat(stream, x);
         StreamUtil.writeFloat(stream, y);
@@ -0,0 +1,121 @@
+package util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads primitives in place from one growable little-endian direct buffer, refilled from the channel only when it
+ * runs out of bytes. Unlike {@link StreamUtil} it doesn't allocate anything per value.
+ */
+public class ByteBufferReader {
+    private final ReadableByteChannel channel;
+    private ByteBuffer buffer;
+    // start of the captured bytes in the buffer, -1 when nothing is captured
+    private int captureStart = -1;
+
+    public ByteBufferReader(ReadableByteChannel channel, int initialCapacity) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(initialCapacity).order(ByteOrder.LITTLE_ENDIAN);
+        this.buffer.limit(0);
+    }
+
+    /**
+     * Reads from bytes which are already in memory, e.g. a recorded message. Running out of them is an EOF.
+     */
+    public ByteBufferReader(ByteBuffer buffer) {
+        this.channel = null;
+        this.buffer = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void ensureAvailable(int byteCount) throws IOException {
+        if (buffer.remaining() < byteCount) {
+            fill(byteCount);
+        }
+    }
+
+    private void fill(int byteCount) throws IOException {
+        if (channel == null) {
+            throw new IOException("Unexpected EOF");
+        }
+        // bytes which were already read, but are still captured, have to survive the refill
+        final int keepFrom = captureStart == -1 ? buffer.position() : captureStart;
+        final int readOffset = buffer.position() - keepFrom;
+        final int needed = readOffset + byteCount;
+        buffer.position(keepFrom);
+        if (buffer.capacity() < needed) {
+            ByteBuffer grown = ByteBuffer.allocateDirect(Math.max(buffer.capacity() * 2, needed)).order(ByteOrder.LITTLE_ENDIAN);
+            grown.put(buffer);
+            buffer = grown;
+        } else {
+            buffer.compact();
+        }
+        while (buffer.position() < needed) {
+            if (channel.read(buffer) == -1) {
+                throw new IOException("Unexpected EOF");
+            }
+        }
+        buffer.flip();
+        buffer.position(readOffset);
+        if (captureStart != -1) {
+            captureStart = 0;
+        }
+    }
+
+    /**
+     * Starts remembering the raw bytes of everything read from now on, see {@link #endCapture()}.
+     */
+    public void startCapture() {
+        captureStart = buffer.position();
+    }
+
+    /**
+     * Raw bytes read since {@link #startCapture()}. The returned buffer shares memory with the reader and is only
+     * valid until the next read.
+     */
+    public ByteBuffer endCapture() {
+        if (captureStart == -1) {
+            throw new AssertionError("Capture wasn't started");
+        }
+        ByteBuffer captured = buffer.duplicate();
+        captured.limit(buffer.position());
+        captured.position(captureStart);
+        captureStart = -1;
+        return captured.slice();
+    }
+
+    public boolean readBoolean() throws IOException {
+        ensureAvailable(1);
+        return buffer.get() != 0;
+    }
+
+    public int readInt() throws IOException {
+        ensureAvailable(Integer.BYTES);
+        return buffer.getInt();
+    }
+
+    public long readLong() throws IOException {
+        ensureAvailable(Long.BYTES);
+        return buffer.getLong();
+    }
+
+    public float readFloat() throws IOException {
+        ensureAvailable(Float.BYTES);
+        return buffer.getFloat();
+    }
+
+    public double readDouble() throws IOException {
+        ensureAvailable(Double.BYTES);
+        return buffer.getDouble();
+    }
+
+    public String readString() throws IOException {
+        int length = readInt();
+        ensureAvailable(length);
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
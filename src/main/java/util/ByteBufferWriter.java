@@ -0,0 +1,94 @@
+package util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes primitives into one growable little-endian direct buffer and sends it to the channel on {@link #flush()}.
+ * The counterpart of {@link ByteBufferReader}: nothing is allocated per value.
+ */
+public class ByteBufferWriter {
+    private final WritableByteChannel channel;
+    private ByteBuffer buffer;
+
+    public ByteBufferWriter(WritableByteChannel channel, int initialCapacity) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(initialCapacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void ensureCapacity(int byteCount) {
+        if (buffer.remaining() < byteCount) {
+            ByteBuffer grown = ByteBuffer.allocateDirect(Math.max(buffer.capacity() * 2, buffer.position() + byteCount)).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.flip();
+            grown.put(buffer);
+            buffer = grown;
+        }
+    }
+
+    /**
+     * Number of bytes written since the last {@link #flush()}.
+     */
+    public int position() {
+        return buffer.position();
+    }
+
+    /**
+     * Bytes written since the last {@link #flush()}. The returned buffer shares memory with the writer and is only
+     * valid until the next write.
+     */
+    public ByteBuffer pending() {
+        ByteBuffer pending = buffer.duplicate();
+        pending.flip();
+        return pending.slice();
+    }
+
+    public void writeBoolean(boolean value) {
+        ensureCapacity(1);
+        buffer.put((byte) (value ? 1 : 0));
+    }
+
+    public void writeInt(int value) {
+        ensureCapacity(Integer.BYTES);
+        buffer.putInt(value);
+    }
+
+    /**
+     * Overwrites an int written earlier, e.g. a length which is only known at the end.
+     */
+    public void putInt(int position, int value) {
+        buffer.putInt(position, value);
+    }
+
+    public void writeLong(long value) {
+        ensureCapacity(Long.BYTES);
+        buffer.putLong(value);
+    }
+
+    public void writeFloat(float value) {
+        ensureCapacity(Float.BYTES);
+        buffer.putFloat(value);
+    }
+
+    public void writeDouble(double value) {
+        ensureCapacity(Double.BYTES);
+        buffer.putDouble(value);
+    }
+
+    public void writeString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeInt(bytes.length);
+        ensureCapacity(bytes.length);
+        buffer.put(bytes);
+    }
+
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
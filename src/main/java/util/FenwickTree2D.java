@@ -0,0 +1,45 @@
+package util;
+
+/**
+ * Counts on a 2D grid with point updates and rectangle sums, both in O(log^2 size). Replaces a prefix-sum table
+ * which would have to be rebuilt after every change.
+ */
+public class FenwickTree2D {
+    private final int sizeX;
+    private final int sizeY;
+    // 1-based
+    private final int[][] tree;
+
+    public FenwickTree2D(int sizeX, int sizeY) {
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.tree = new int[sizeX + 1][sizeY + 1];
+    }
+
+    public void add(int x, int y, int delta) {
+        for (int i = x + 1; i <= sizeX; i += i & -i) {
+            final int[] column = tree[i];
+            for (int j = y + 1; j <= sizeY; j += j & -j) {
+                column[j] += delta;
+            }
+        }
+    }
+
+    /**
+     * @return sum over cells with coordinates {@code <= (x, y)}, 0 if any of them is negative
+     */
+    public int prefixSum(int x, int y) {
+        int result = 0;
+        for (int i = Math.min(x + 1, sizeX); i > 0; i -= i & -i) {
+            final int[] column = tree[i];
+            for (int j = Math.min(y + 1, sizeY); j > 0; j -= j & -j) {
+                result += column[j];
+            }
+        }
+        return result;
+    }
+
+    public int rectSum(int frX, int toX, int frY, int toY) {
+        return prefixSum(toX, toY) - prefixSum(frX - 1, toY) - prefixSum(toX, frY - 1) + prefixSum(frX - 1, frY - 1);
+    }
+}
@@ -0,0 +1,46 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive ints. {@link #clear()} keeps the backing array, so one instance can be refilled every
+ * tick without allocating.
+ */
+public class IntList {
+    private int[] values;
+    private int size;
+
+    public IntList() {
+        this(16);
+    }
+
+    public IntList(int initialCapacity) {
+        values = new int[initialCapacity];
+    }
+
+    public void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, Math.max(1, values.length * 2));
+        }
+        values[size++] = value;
+    }
+
+    public int get(int index) {
+        if (index >= size) {
+            throw new AssertionError("Index " + index + " is out of bounds, size = " + size);
+        }
+        return values[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+}